@@ -230,6 +230,12 @@ public final class AsmTransformer {
 		System.out.println("ClassTinkerers initialized.");
 	}
 
+	public Set<String> getTransformationTargets() {
+		Set<String> targets = new HashSet<>(classModifiers.keySet());
+		targets.addAll(classReplacers.keySet());
+		return targets;
+	}
+
 	public Optional<Consumer<ClassNode>> getClassModifier(String className){
 		final String newClassName = className.replace('.', '/');
 		if (!classModifiers.containsKey(newClassName) && !classReplacers.containsKey(newClassName)) return Optional.empty();
@@ -0,0 +1,307 @@
+/*
+ * Copyright 2016 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.fabricmc.loader.impl.discovery;
+
+import net.fabricmc.api.EnvType;
+import net.fabricmc.loader.impl.util.log.Log;
+import net.fabricmc.loader.impl.util.log.LogCategory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+
+/**
+ * Persistent index of the mod jars scanned by {@link ModDiscoverer}, keyed by environment, path, size, modification
+ * time and the CRC of the zip central directory.
+ *
+ * <p>For every jar it keeps the raw mod metadata and the layout of its nested jars (entry name, hash and their own
+ * metadata, recursively), so unchanged jars are not opened as zip at all. The central directory lists the CRC of
+ * every entry, so hashing it catches content changes that keep size and modification time, at the cost of reading
+ * the end of the jar instead of all of it. The environment is part of the key because nested jars of mods not
+ * loading in the environment are not scanned. The metadata is stored unparsed and parsed again from memory on every
+ * launch, which keeps version and dependency overrides effective. Each metadata blob is stored with its CRC, a
+ * mismatch discards the whole index.
+ */
+final class DiscoveryCache {
+	private static final int MAGIC = 0x464D4C44;
+	private static final int FORMAT_VERSION = 2;
+	private static final int END_OF_CENTRAL_DIRECTORY = 0x06054B50;
+	private static final int END_OF_CENTRAL_DIRECTORY_SIZE = 22;
+
+	private final Path file;
+	private final String keyPrefix;
+	private final Map<String, Entry> entries;
+	private final Map<String, Entry> seen = new ConcurrentHashMap<>();
+	private volatile boolean dirty;
+
+	private DiscoveryCache(Path file, EnvType envType, Map<String, Entry> entries) {
+		this.file = file;
+		this.keyPrefix = envType.name() + ":";
+		this.entries = entries;
+	}
+
+	static DiscoveryCache load(Path file, EnvType envType) {
+		Map<String, Entry> entries = new HashMap<>();
+
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+			if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) throw new IOException("unknown format");
+
+			int count = in.readInt();
+
+			for (int i = 0; i < count; i++) {
+				String key = in.readUTF();
+				long size = in.readLong();
+				long lastModified = in.readLong();
+				int directoryCrc = in.readInt();
+				entries.put(key, new Entry(size, lastModified, directoryCrc, readLayout(in)));
+			}
+		} catch (NoSuchFileException e) {
+			// first launch
+		} catch (IOException | RuntimeException e) {
+			Log.warn(LogCategory.DISCOVERY, "Discarding unreadable mod discovery cache %s", file, e);
+			entries.clear();
+		}
+
+		return new DiscoveryCache(file, envType, entries);
+	}
+
+	/**
+	 * @return the cached layout of the jar, or null if it is unknown or changed since it was cached
+	 */
+	Layout get(Path path, BasicFileAttributes attributes) {
+		String key = keyPrefix + path;
+		Entry entry = entries.get(key);
+
+		if (entry == null
+				|| entry.size != attributes.size()
+				|| entry.lastModified != attributes.lastModifiedTime().toMillis()) {
+			return null;
+		}
+
+		try {
+			if (entry.directoryCrc != directoryCrc(path, attributes.size())) return null;
+		} catch (IOException e) {
+			return null;
+		}
+
+		seen.put(key, entry);
+
+		return entry.layout;
+	}
+
+	void put(Path path, BasicFileAttributes attributes, Layout layout) {
+		int directoryCrc;
+
+		try {
+			directoryCrc = directoryCrc(path, attributes.size());
+		} catch (IOException e) {
+			Log.debug(LogCategory.DISCOVERY, "Not caching mod jar %s: %s", path, e);
+			return;
+		}
+
+		seen.put(keyPrefix + path, new Entry(attributes.size(), attributes.lastModifiedTime().toMillis(), directoryCrc, layout));
+		dirty = true;
+	}
+
+	int size() {
+		return entries.size();
+	}
+
+	/**
+	 * Writes the jars seen during this discovery, dropping the ones of this environment that are gone, if anything
+	 * changed. The jars of the other environments are kept as they were.
+	 */
+	void save() {
+		int own = 0;
+
+		for (String key : entries.keySet()) {
+			if (key.startsWith(keyPrefix)) own++;
+		}
+
+		if (!dirty && seen.size() == own) return;
+
+		Map<String, Entry> written = new HashMap<>(seen);
+
+		for (Map.Entry<String, Entry> e : entries.entrySet()) {
+			if (!e.getKey().startsWith(keyPrefix)) written.put(e.getKey(), e.getValue());
+		}
+
+		try {
+			Files.createDirectories(file.getParent());
+			Path tmp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+				out.writeInt(MAGIC);
+				out.writeInt(FORMAT_VERSION);
+				out.writeInt(written.size());
+
+				for (Map.Entry<String, Entry> e : written.entrySet()) {
+					out.writeUTF(e.getKey());
+					out.writeLong(e.getValue().size);
+					out.writeLong(e.getValue().lastModified);
+					out.writeInt(e.getValue().directoryCrc);
+					writeLayout(out, e.getValue().layout);
+				}
+			}
+
+			try {
+				Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} catch (IOException e) {
+			Log.warn(LogCategory.DISCOVERY, "Error writing mod discovery cache %s", file, e);
+		}
+	}
+
+	private static Layout readLayout(DataInputStream in) throws IOException {
+		String localPath = in.readBoolean() ? in.readUTF() : null;
+		long hash = in.readLong();
+		byte[] metadata = null;
+
+		if (in.readBoolean()) {
+			metadata = new byte[in.readInt()];
+			in.readFully(metadata);
+
+			if (in.readInt() != crc(metadata)) throw new IOException("metadata checksum mismatch");
+		}
+
+		int nestedCount = in.readInt();
+		List<Layout> nested = nestedCount == 0 ? Collections.emptyList() : new ArrayList<>(nestedCount);
+
+		for (int i = 0; i < nestedCount; i++) {
+			nested.add(readLayout(in));
+		}
+
+		return new Layout(localPath, hash, metadata, nested);
+	}
+
+	private static void writeLayout(DataOutputStream out, Layout layout) throws IOException {
+		out.writeBoolean(layout.localPath != null);
+		if (layout.localPath != null) out.writeUTF(layout.localPath);
+		out.writeLong(layout.hash);
+		out.writeBoolean(layout.metadata != null);
+
+		if (layout.metadata != null) {
+			out.writeInt(layout.metadata.length);
+			out.write(layout.metadata);
+			out.writeInt(crc(layout.metadata));
+		}
+
+		out.writeInt(layout.nested.size());
+
+		for (Layout child : layout.nested) {
+			writeLayout(out, child);
+		}
+	}
+
+	/**
+	 * Hashes the zip central directory and everything after it, or the end of the file if the end of central
+	 * directory record is not found or points outside the file (e.g. zip64).
+	 */
+	private static int directoryCrc(Path path, long size) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			int tailSize = (int) Math.min(size, END_OF_CENTRAL_DIRECTORY_SIZE + 0xFFFF);
+			ByteBuffer tail = read(channel, size - tailSize, tailSize).order(ByteOrder.LITTLE_ENDIAN);
+			ByteBuffer hashed = tail;
+
+			for (int i = tailSize - END_OF_CENTRAL_DIRECTORY_SIZE; i >= 0; i--) {
+				if (tail.getInt(i) != END_OF_CENTRAL_DIRECTORY) continue;
+
+				long directoryOffset = tail.getInt(i + 16) & 0xFFFFFFFFL;
+
+				if (directoryOffset < size && size - directoryOffset <= Integer.MAX_VALUE) {
+					hashed = read(channel, directoryOffset, (int) (size - directoryOffset));
+				}
+
+				break;
+			}
+
+			CRC32 crc = new CRC32();
+			crc.update(hashed.rewind());
+
+			return (int) crc.getValue();
+		}
+	}
+
+	private static ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(length);
+
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, position + buffer.position()) < 0) throw new IOException("unexpected end of file");
+		}
+
+		return buffer.flip();
+	}
+
+	private static int crc(byte[] data) {
+		CRC32 crc = new CRC32();
+		crc.update(data);
+
+		return (int) crc.getValue();
+	}
+
+	private static final class Entry {
+		final long size;
+		final long lastModified;
+		final int directoryCrc;
+		final Layout layout;
+
+		Entry(long size, long lastModified, int directoryCrc, Layout layout) {
+			this.size = size;
+			this.lastModified = lastModified;
+			this.directoryCrc = directoryCrc;
+			this.layout = layout;
+		}
+	}
+
+	/**
+	 * Scan result of a jar: its metadata file content (null if it is no mod) and its nested jars.
+	 */
+	static final class Layout {
+		final String localPath; // entry name in the parent jar, null for root jars
+		final long hash; // see ModCandidate.hash, -1 for root jars
+		final byte[] metadata;
+		final List<Layout> nested;
+
+		Layout(String localPath, long hash, byte[] metadata, List<Layout> nested) {
+			this.localPath = localPath;
+			this.hash = hash;
+			this.metadata = metadata;
+			this.nested = nested;
+		}
+	}
+}
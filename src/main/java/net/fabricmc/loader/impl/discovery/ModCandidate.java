@@ -53,6 +53,7 @@ public class ModCandidate implements DomainObject.Mod {
 	private List<Path> paths;
 	private int minNestLevel;
 	private SoftReference<ByteBuffer> dataRef;
+	private Path nestedJarPath; // extracted copy of a nested jar, see ModDiscoverer#setNestedJarDir
 
 	protected ModCandidate(List<Path> paths, String localPath, long hash, LoaderModMetadata metadata, boolean requiresRemap, Collection<ModCandidate> nestedMods) {
 		this.originPaths = paths;
@@ -88,7 +89,7 @@ public class ModCandidate implements DomainObject.Mod {
 		return entry.getCrc() << 32 | entry.getSize();
 	}
 
-	private static long getSize(long hash) {
+	static long getSize(long hash) {
 		return hash & 0xffffffffL;
 	}
 
@@ -102,6 +103,10 @@ public class ModCandidate implements DomainObject.Mod {
 		return hash;
 	}
 
+	long getHash() {
+		return hash;
+	}
+
 	public List<Path> getOriginPaths() {
 		return originPaths;
 	}
@@ -214,6 +219,23 @@ public class ModCandidate implements DomainObject.Mod {
 		this.dataRef = null;
 	}
 
+	void setNestedJarPath(Path nestedJarPath) {
+		this.nestedJarPath = nestedJarPath;
+	}
+
+	/**
+	 * @return a jar file holding this mod's content, or null if it has to be read from a parent
+	 */
+	private Path getJarPath() {
+		if (paths != null) {
+			if (paths.size() != 1) throw new UnsupportedOperationException("multiple paths for "+this);
+
+			return paths.get(0);
+		}
+
+		return nestedJarPath;
+	}
+
 	public Path copyToDir(Path outputDir, boolean temp) throws IOException {
 		Files.createDirectories(outputDir);
 		Path ret = null;
@@ -276,12 +298,17 @@ public class ModCandidate implements DomainObject.Mod {
 			return;
 		}
 
-		ModCandidate parent = getBestSourcingParent();
+		if (nestedJarPath != null) {
+			Files.copy(nestedJarPath, out, StandardCopyOption.REPLACE_EXISTING);
+
+			return;
+		}
 
-		if (parent.paths != null) {
-			if (parent.paths.size() != 1) throw new UnsupportedOperationException("multiple parent paths for "+this);
+		ModCandidate parent = getBestSourcingParent();
+		Path parentJar = parent.getJarPath();
 
-			try (ZipFile zf = new ZipFile(parent.paths.get(0).toFile())) {
+		if (parentJar != null) {
+			try (ZipFile zf = new ZipFile(parentJar.toFile())) {
 				ZipEntry entry = zf.getEntry(localPath);
 				if (entry == null) throw new IOException(String.format("can't find nested mod %s in its parent mod %s", this, parent));
 
@@ -315,17 +342,16 @@ public class ModCandidate implements DomainObject.Mod {
 
 		ByteBuffer ret;
 
-		if (paths != null) {
-			if (paths.size() != 1) throw new UnsupportedOperationException("multiple paths for "+this);
+		Path jar = getJarPath();
 
-			ret = ByteBuffer.wrap(Files.readAllBytes(paths.get(0)));
+		if (jar != null) {
+			ret = ByteBuffer.wrap(Files.readAllBytes(jar));
 		} else {
 			ModCandidate parent = getBestSourcingParent();
+			Path parentJar = parent.getJarPath();
 
-			if (parent.paths != null) {
-				if (parent.paths.size() != 1) throw new UnsupportedOperationException("multiple parent paths for "+this);
-
-				try (ZipFile zf = new ZipFile(parent.paths.get(0).toFile())) {
+			if (parentJar != null) {
+				try (ZipFile zf = new ZipFile(parentJar.toFile())) {
 					ZipEntry entry = zf.getEntry(localPath);
 					if (entry == null) throw new IOException(String.format("can't find nested mod %s in its parent mod %s", this, parent));
 
@@ -368,6 +394,7 @@ public class ModCandidate implements DomainObject.Mod {
 			if (parent.minNestLevel >= minNestLevel) continue;
 
 			if (parent.paths != null && parent.paths.size() == 1
+					|| parent.nestedJarPath != null
 					|| parent.dataRef != null && parent.dataRef.get() != null) {
 				return parent;
 			}
@@ -26,13 +26,20 @@ import net.fabricmc.loader.impl.util.SystemProperties;
 import net.fabricmc.loader.impl.util.log.Log;
 import net.fabricmc.loader.impl.util.log.LogCategory;
 import net.xiaoyu233.fml.FishModLoader;
+import net.xiaoyu233.fml.StartupMetrics;
+import net.xiaoyu233.fml.util.LoaderExecutor;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
 import java.util.*;
 import java.util.concurrent.*;
 import java.util.stream.Collectors;
@@ -46,7 +53,15 @@ public final class ModDiscoverer {
 	private final List<ModCandidateFinder> candidateFinders = new ArrayList<>();
 	private final EnvType envType = FishModLoader.getEnvironmentType();
 	private final Map<Long, ModScanTask> jijDedupMap = new ConcurrentHashMap<>(); // avoids reading the same jar twice
-	private final List<NestedModInitData> nestedModInitDatas = Collections.synchronizedList(new ArrayList<>()); // breaks potential cycles from deduplication
+	private final ExecutorService executor = LoaderExecutor.get();
+	private List<ModScanTask> rootTasks; // set once scanning started
+	private long startTime;
+	private DiscoveryCache discoveryCache;
+	private Path nestedJarDir;
+	private final Set<Path> usedNestedJars = ConcurrentHashMap.newKeySet();
+	// nested jars are shared by both environments and by other instances using the same game directory
+	private static final long NESTED_JAR_RETENTION_MILLIS = TimeUnit.DAYS.toMillis(Integer.getInteger("fml.nestedJarRetentionDays", 14));
+	private static final long NESTED_JAR_TOUCH_MILLIS = TimeUnit.DAYS.toMillis(1);
 
 	public ModDiscoverer(VersionOverrides versionOverrides, DependencyOverrides depOverrides) {
 		this.versionOverrides = versionOverrides;
@@ -104,18 +119,42 @@ public final class ModDiscoverer {
 		candidateFinders.add(f);
 	}
 
-	public List<ModCandidate> discoverMods(Map<String, Set<ModCandidate>> envDisabledModsOut) throws ModResolutionException {
-		long startTime = System.nanoTime();
-		ForkJoinPool pool = new ForkJoinPool();
+	/**
+	 * Reuses the scan results of unchanged mod jars from the given file and updates it after discovery.
+	 */
+	public void enableDiscoveryCache(Path cacheFile) {
+		discoveryCache = DiscoveryCache.load(cacheFile, envType);
+	}
+
+	/**
+	 * Extracts nested jars once into the given directory, named after their hash, and scans them from there instead
+	 * of buffering them in memory. The jars a discovery uses get their modification time refreshed, jars no discovery
+	 * used for {@code fml.nestedJarRetentionDays} days (14 by default, 0 keeps them) are deleted.
+	 */
+	public void setNestedJarDir(Path dir) throws IOException {
+		Files.createDirectories(dir);
+		nestedJarDir = dir;
+	}
+
+	/**
+	 * Finds the candidate paths and starts scanning them on the shared loader executor, so that other startup work
+	 * can run until {@link #discoverMods} collects the results. Does nothing if scanning already started.
+	 */
+	public void startScanning() {
+		if (rootTasks != null) return;
+
+		startTime = System.nanoTime();
 		Set<Path> processedPaths = new HashSet<>(); // suppresses duplicate paths
-		List<Future<ModCandidate>> futures = new ArrayList<>();
+		List<ModScanTask> tasks = new ArrayList<>();
 
 		ModCandidateConsumer taskSubmitter = (paths, requiresRemap) -> {
 			if (paths.size() == 1) {
 				Path path = LoaderUtil.normalizeExistingPath(paths.get(0));
 
 				if (processedPaths.add(path)) {
-					futures.add(pool.submit(new ModScanTask(Collections.singletonList(path), requiresRemap)));
+					ModScanTask task = new ModScanTask(Collections.singletonList(path), requiresRemap);
+					task.start();
+					tasks.add(task);
 				}
 			} else {
 				List<Path> normalizedPaths = new ArrayList<>(paths.size());
@@ -126,7 +165,9 @@ public final class ModDiscoverer {
 
 				if (!processedPaths.containsAll(normalizedPaths)) {
 					processedPaths.addAll(normalizedPaths);
-					futures.add(pool.submit(new ModScanTask(normalizedPaths, requiresRemap)));
+					ModScanTask task = new ModScanTask(normalizedPaths, requiresRemap);
+					task.start();
+					tasks.add(task);
 				}
 			}
 		};
@@ -135,6 +176,12 @@ public final class ModDiscoverer {
 			finder.findCandidates(taskSubmitter);
 		}
 
+		rootTasks = tasks;
+	}
+
+	public List<ModCandidate> discoverMods(Map<String, Set<ModCandidate>> envDisabledModsOut) throws ModResolutionException {
+		startScanning();
+		List<ModScanTask> futures = rootTasks;
 		List<ModCandidate> candidates = new ArrayList<>();
 
 		// add builtin mods
@@ -152,37 +199,21 @@ public final class ModDiscoverer {
 		if (timeout <= 0) timeout = Integer.MAX_VALUE;
 
 		try {
-			pool.shutdown();
-
-			pool.awaitTermination(timeout, TimeUnit.SECONDS);
-
-			for (Future<ModCandidate> future : futures) {
-				if (!future.isDone()) {
-					throw new TimeoutException();
-				}
+			// every root future completes after its nested mods, failed ones are reported below
+			CompletableFuture.allOf(futures.stream().map(task -> task.future).toArray(CompletableFuture[]::new))
+					.exceptionally(t -> null)
+					.get(timeout, TimeUnit.SECONDS);
 
+			for (ModScanTask task : futures) {
 				try {
-					ModCandidate candidate = future.get();
+					ModCandidate candidate = task.future.get();
 					if (candidate != null) candidates.add(candidate);
 				} catch (ExecutionException e) {
 					exception = ExceptionUtil.gatherExceptions(e, exception, exc -> new ModResolutionException("Mod discovery failed!", exc));
 				}
 			}
-
-			for (NestedModInitData data : nestedModInitDatas) {
-				for (Future<ModCandidate> future : data.futures) {
-					if (!future.isDone()) {
-						throw new TimeoutException();
-					}
-
-					try {
-						ModCandidate candidate = future.get();
-						if (candidate != null) data.target.add(candidate);
-					} catch (ExecutionException e) {
-						exception = ExceptionUtil.gatherExceptions(e, exception, exc -> new ModResolutionException("Mod discovery failed!", exc));
-					}
-				}
-			}
+		} catch (ExecutionException e) {
+			throw new IllegalStateException(e); // unreachable, failures are mapped to null above
 		} catch (TimeoutException e) {
 			throw new FormattedException("Mod discovery took too long!",
 					"Analyzing the mod folder contents took longer than %d seconds. This may be caused by unusually slow hardware, pathological antivirus interference or other issues. The timeout can be changed with the system property %s (-D%<s=<desired timeout in seconds>).",
@@ -195,6 +226,25 @@ public final class ModDiscoverer {
 			throw exception;
 		}
 
+		if (discoveryCache != null) {
+			int hits = 0;
+
+			for (ModScanTask task : futures) {
+				if (task.cacheAttributes != null) {
+					discoveryCache.put(task.paths.get(0), task.cacheAttributes, task.toLayout());
+				} else if (task.cached != null) {
+					hits++;
+				}
+			}
+
+			discoveryCache.save();
+			Log.debug(LogCategory.DISCOVERY, "Mod discovery cache: %d of %d jars unchanged", hits, futures.size());
+		}
+
+		if (nestedJarDir != null) {
+			cleanNestedJars();
+		}
+
 		// get optional set of disabled mod ids
 		Set<String> disabledModIds = findDisabledModIds();
 
@@ -226,10 +276,72 @@ public final class ModDiscoverer {
 		long endTime = System.nanoTime();
 
 		Log.debug(LogCategory.DISCOVERY, "Mod discovery time: %.1f ms", (endTime - startTime) * 1e-6);
+		StartupMetrics.record(StartupMetrics.DISCOVERY, endTime - startTime);
 
 		return new ArrayList<>(ret);
 	}
 
+	private Path getNestedJarPath(long hash) {
+		return nestedJarDir.resolve(String.format("%016x.jar", hash));
+	}
+
+	/**
+	 * Streams a nested jar into the nested jar directory unless an intact copy is already there.
+	 */
+	private Path extractNestedJar(ZipEntrySource entrySource, long hash) throws IOException {
+		Path target = getNestedJarPath(hash);
+
+		if (!Files.isRegularFile(target) || Files.size(target) != ModCandidate.getSize(hash)) {
+			Path tmp = Files.createTempFile(nestedJarDir, "jij", ".tmp");
+
+			try {
+				try (InputStream is = entrySource.openStream()) {
+					Files.copy(is, tmp, StandardCopyOption.REPLACE_EXISTING);
+				}
+
+				try {
+					Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+				} catch (IOException e) {
+					// another task extracted the same jar and has it open
+					if (!Files.isRegularFile(target) || Files.size(target) != ModCandidate.getSize(hash)) throw e;
+				}
+			} finally {
+				Files.deleteIfExists(tmp);
+			}
+		}
+
+		usedNestedJars.add(target);
+
+		return target;
+	}
+
+	/**
+	 * Marks the nested jars used by this discovery and deletes the ones unused for a while. A jar unused here may still
+	 * be needed by the other environment or by another instance running on the same game directory, so only age
+	 * decides, with the modification time as the last use.
+	 */
+	private void cleanNestedJars() {
+		long now = System.currentTimeMillis();
+
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(nestedJarDir)) {
+			for (Path file : stream) {
+				try {
+					long lastUsed = Files.getLastModifiedTime(file).toMillis();
+
+					if (usedNestedJars.contains(file)) {
+						if (now - lastUsed > NESTED_JAR_TOUCH_MILLIS) Files.setLastModifiedTime(file, FileTime.fromMillis(now));
+					} else if (NESTED_JAR_RETENTION_MILLIS > 0 && now - lastUsed > NESTED_JAR_RETENTION_MILLIS) {
+						Files.deleteIfExists(file);
+					}
+				} catch (IOException e) {
+					Log.debug(LogCategory.DISCOVERY, "Can't clean up nested jar %s: %s", file, e);
+				}
+			}
+		} catch (IOException e) {
+			Log.warn(LogCategory.DISCOVERY, "Error cleaning up nested jars in %s", nestedJarDir, e);
+		}
+	}
+
 	private ModCandidate createJavaMod() {
 		BuiltinModMetadata metadata = new BuiltinModMetadata.Builder("java", System.getProperty("java.specification.version").replaceFirst("^1\\.", ""))
 				.setName(System.getProperty("java.vm.name"))
@@ -242,6 +354,7 @@ public final class ModDiscoverer {
 	private interface ZipEntrySource {
 		ZipEntry getNextEntry() throws IOException;
 		RewindableInputStream getInputStream() throws IOException;
+		InputStream openStream() throws IOException; // the current entry without buffering it
 	}
 
 	private static final class RewindableInputStream extends InputStream {
@@ -287,42 +400,93 @@ public final class ModDiscoverer {
 		}
 	}
 
-	private static class NestedModInitData {
-		final List<? extends Future<ModCandidate>> futures;
-		final List<ModCandidate> target;
-
-		NestedModInitData(List<? extends Future<ModCandidate>> futures, List<ModCandidate> target) {
-			this.futures = futures;
-			this.target = target;
-		}
-	}
-
-	@SuppressWarnings("serial")
-	final class ModScanTask extends RecursiveTask<ModCandidate> {
+	final class ModScanTask {
 		private final List<Path> paths;
 		private final String localPath;
 		private final RewindableInputStream is;
+		private Path nestedJar; // nested jar extracted to nestedJarDir
 		private final long hash;
 		private final boolean requiresRemap;
 		private final List<String> parentPaths;
+		private final ModScanTask parent; // task that first found this nested jar, null for root jars
+		private DiscoveryCache.Layout cached; // scan result from the discovery cache, replaces reading the jar
+		private BasicFileAttributes cacheAttributes; // set for root jars that were scanned and should be cached
+		private byte[] metadataData;
+		private List<ModScanTask> nestedTasks = Collections.emptyList();
+		private List<ModCandidate> nestedMods; // filled once the nested tasks completed
+		final CompletableFuture<ModCandidate> future = new CompletableFuture<>(); // completes after the nested mods
 
 		ModScanTask(List<Path> paths, boolean requiresRemap) {
-			this(paths, null, null, -1, requiresRemap, Collections.emptyList());
+			this(paths, null, null, -1, requiresRemap, Collections.emptyList(), null);
 		}
 
 		private ModScanTask(List<Path> paths, String localPath, RewindableInputStream is, long hash,
-				boolean requiresRemap, List<String> parentPaths) {
+				boolean requiresRemap, List<String> parentPaths, ModScanTask parent) {
 			this.paths = paths;
 			this.localPath = localPath != null ? localPath : paths.get(0).toString();
 			this.is = is;
 			this.hash = hash;
 			this.requiresRemap = requiresRemap;
 			this.parentPaths = parentPaths;
+			this.parent = parent;
 		}
 
-		@Override
-		protected ModCandidate compute() {
-			if (is != null) { // nested jar
+		private ModScanTask(Path nestedJar, String localPath, long hash, boolean requiresRemap, List<String> parentPaths, ModScanTask parent) {
+			this(null, localPath, null, hash, requiresRemap, parentPaths, parent);
+			this.nestedJar = nestedJar;
+		}
+
+		private ModScanTask(DiscoveryCache.Layout cached, boolean requiresRemap, List<String> parentPaths, ModScanTask parent) {
+			this(null, cached.localPath, null, cached.hash, requiresRemap, parentPaths, parent);
+			this.cached = cached;
+		}
+
+		/**
+		 * Scans this jar on the executor. The future completes once the jar and its nested jars, which are scanned
+		 * concurrently, are done.
+		 */
+		void start() {
+			CompletableFuture.supplyAsync(this::compute, executor)
+					.thenCompose(candidate -> {
+						if (candidate == null || nestedTasks.isEmpty()) return CompletableFuture.completedFuture(candidate);
+
+						return CompletableFuture.allOf(nestedTasks.stream().map(task -> task.future).toArray(CompletableFuture[]::new))
+								.thenApply(ignored -> {
+									for (ModScanTask task : nestedTasks) {
+										ModCandidate nested = task.future.join();
+										if (nested != null) nestedMods.add(nested);
+									}
+
+									return candidate;
+								});
+					})
+					.whenComplete((candidate, t) -> {
+						if (t != null) {
+							future.completeExceptionally(t);
+						} else {
+							future.complete(candidate);
+						}
+					});
+		}
+
+		private ModCandidate compute() {
+			if (cached != null) { // nested jar from the discovery cache
+				try {
+					return computeCached();
+				} catch (ParseMetadataException e) { // already contains all context
+					throw ExceptionUtil.wrap(e);
+				} catch (Throwable t) {
+					throw new RuntimeException(String.format("Error analyzing cached nested jar %s from %s: %s", localPath, parentPaths, t), t);
+				}
+			} else if (nestedJar != null) { // nested jar extracted to nestedJarDir
+				try {
+					return computeJarFile(nestedJar);
+				} catch (ParseMetadataException e) { // already contains all context
+					throw ExceptionUtil.wrap(e);
+				} catch (Throwable t) {
+					throw new RuntimeException(String.format("Error analyzing nested jar %s from %s: %s", localPath, parentPaths, t), t);
+				}
+			} else if (is != null) { // nested jar
 				try {
 					return computeJarStream();
 				} catch (ParseMetadataException e) { // already contains all context
@@ -337,6 +501,16 @@ public final class ModDiscoverer {
 
 						if (Files.isDirectory(path)) {
 							candidate = computeDir(path);
+						} else if (discoveryCache != null && paths.size() == 1) {
+							BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+							cached = discoveryCache.get(path, attributes);
+
+							if (cached != null) {
+								candidate = computeCached();
+							} else {
+								candidate = computeJarFile(path);
+								cacheAttributes = attributes;
+							}
 						} else {
 							candidate = computeJarFile(path);
 						}
@@ -381,11 +555,13 @@ public final class ModDiscoverer {
 					LoaderModMetadata metadata;
 
 					try (InputStream is = zf.getInputStream(entry)) {
-						metadata = parseMetadata(is, localPath);
+						metadataData = is.readAllBytes();
 					}
 
+					metadata = parseMetadata(new ByteArrayInputStream(metadataData), localPath);
+
 					if (!metadata.loadsInEnvironment(envType)) {
-						return ModCandidate.createPlain(paths, metadata, requiresRemap, Collections.emptyList());
+						return createCandidate(metadata, Collections.emptyList());
 					}
 
 					List<ModScanTask> nestedModTasks;
@@ -422,6 +598,11 @@ public final class ModDiscoverer {
 									return new RewindableInputStream(is);
 								}
 							}
+
+							@Override
+							public InputStream openStream() throws IOException {
+								return zf.getInputStream(currentEntry);
+							}
 						});
 
 						if (!nestedJarPaths.isEmpty() && FishModLoader.isDevelopmentEnvironment()) {
@@ -429,16 +610,7 @@ public final class ModDiscoverer {
 						}
 					}
 
-					List<ModCandidate> nestedMods;
-
-					if (nestedModTasks.isEmpty()) {
-						nestedMods = Collections.emptyList();
-					} else {
-						nestedMods = new ArrayList<>();
-						nestedModInitDatas.add(new NestedModInitData(nestedModTasks, nestedMods));
-					}
-
-					return ModCandidate.createPlain(paths, metadata, requiresRemap, nestedMods);
+					return createCandidate(metadata, linkNestedMods(nestedModTasks));
 				}
 			}
             return null;
@@ -452,7 +624,8 @@ public final class ModDiscoverer {
 			try (ZipInputStream zis = new ZipInputStream(is)) {
 				while ((entry = zis.getNextEntry()) != null) {
 					if (entry.getName().equals("fml.mod.json") || entry.getName().equals("fabric.mod.json")) {
-						metadata = parseMetadata(zis, localPath);
+						metadataData = zis.readAllBytes();
+						metadata = parseMetadata(new ByteArrayInputStream(metadataData), localPath);
 						break;
 					}
 				}
@@ -502,6 +675,11 @@ public final class ModDiscoverer {
 						public RewindableInputStream getInputStream() throws IOException {
 							return is;
 						}
+
+						@Override
+						public InputStream openStream() throws IOException {
+							return is;
+						}
 					});
 				}
 
@@ -510,54 +688,152 @@ public final class ModDiscoverer {
 				}
 			}
 
-			List<ModCandidate> nestedMods;
+			ModCandidate ret = ModCandidate.createNested(localPath, hash, metadata, requiresRemap, linkNestedMods(nestedModTasks));
+			ret.setData(is.getBuffer());
 
-			if (nestedModTasks.isEmpty()) {
-				nestedMods = Collections.emptyList();
-			} else {
-				nestedMods = new ArrayList<>();
-				nestedModInitDatas.add(new NestedModInitData(nestedModTasks, nestedMods));
+			return ret;
+		}
+
+		private ModCandidate computeCached() throws IOException, ParseMetadataException {
+			if (cached.metadata == null) return null;
+
+			LoaderModMetadata metadata = parseMetadata(new ByteArrayInputStream(cached.metadata), localPath);
+			List<ModCandidate> nestedMods = Collections.emptyList();
+
+			if (metadata.loadsInEnvironment(envType) && !cached.nested.isEmpty()) {
+				nestedMods = linkNestedMods(computeCachedNestedMods(cached.nested));
+			}
+
+			// nested jars keep no data, they are read from their extracted copy or their parent when needed
+			if (paths == null && nestedJarDir != null) {
+				Path jar = getNestedJarPath(hash);
+
+				if (Files.isRegularFile(jar) && Files.size(jar) == ModCandidate.getSize(hash)) {
+					nestedJar = jar;
+					usedNestedJars.add(jar);
+				}
+			}
+
+			return createCandidate(metadata, nestedMods);
+		}
+
+		/**
+		 * @return the list receiving the nested mods once their tasks complete, see {@link #start}
+		 */
+		private List<ModCandidate> linkNestedMods(List<ModScanTask> nestedModTasks) {
+			if (nestedModTasks.isEmpty()) return Collections.emptyList();
+
+			nestedTasks = nestedModTasks;
+			nestedMods = new ArrayList<>(nestedModTasks.size());
+
+			return nestedMods;
+		}
+
+		private ModCandidate createCandidate(LoaderModMetadata metadata, Collection<ModCandidate> nestedMods) {
+			if (paths != null) {
+				return ModCandidate.createPlain(paths, metadata, requiresRemap, nestedMods);
 			}
 
 			ModCandidate ret = ModCandidate.createNested(localPath, hash, metadata, requiresRemap, nestedMods);
-			ret.setData(is.getBuffer());
+			if (nestedJar != null) ret.setNestedJarPath(nestedJar);
 
 			return ret;
 		}
 
+		private List<ModScanTask> computeCachedNestedMods(List<DiscoveryCache.Layout> nested) {
+			List<String> parentPaths = new ArrayList<>(this.parentPaths.size() + 1);
+			parentPaths.addAll(this.parentPaths);
+			parentPaths.add(localPath);
+
+			List<ModScanTask> tasks = new ArrayList<>(nested.size());
+
+			for (DiscoveryCache.Layout layout : nested) {
+				if (isSelfOrAncestor(layout.hash)) {
+					Log.warn(LogCategory.DISCOVERY, "Skipping nested jar %s in %s: it contains itself", layout.localPath, parentPaths);
+					continue;
+				}
+
+				ModScanTask task = jijDedupMap.get(layout.hash);
+
+				if (task == null) {
+					task = new ModScanTask(layout, requiresRemap, parentPaths, this);
+					ModScanTask prev = jijDedupMap.putIfAbsent(layout.hash, task);
+
+					if (prev != null) {
+						task = prev;
+					} else {
+						task.start();
+					}
+				}
+
+				tasks.add(task);
+			}
+
+			return tasks;
+		}
+
+		/**
+		 * @return the scan result of this jar and its nested jars for the discovery cache
+		 */
+		DiscoveryCache.Layout toLayout() {
+			if (cached != null) return cached;
+
+			List<DiscoveryCache.Layout> nested = new ArrayList<>(nestedTasks.size());
+
+			for (ModScanTask task : nestedTasks) {
+				nested.add(task.toLayout());
+			}
+
+			return new DiscoveryCache.Layout(paths != null ? null : localPath, hash, metadataData, nested);
+		}
+
+		/**
+		 * A nested jar equal to this jar or one of its ancestors would wait on its own future, see {@link #start}.
+		 */
+		private boolean isSelfOrAncestor(long hash) {
+			for (ModScanTask task = this; task != null; task = task.parent) {
+				if (task.paths == null && task.hash == hash) return true;
+			}
+
+			return false;
+		}
+
 		private List<ModScanTask> computeNestedMods(ZipEntrySource entrySource) throws IOException {
 			List<String> parentPaths = new ArrayList<>(this.parentPaths.size() + 1);
 			parentPaths.addAll(this.parentPaths);
 			parentPaths.add(localPath);
 
 			List<ModScanTask> tasks = new ArrayList<>(5);
-			ModScanTask localTask = null;
 			ZipEntry entry;
 
 			while ((entry = entrySource.getNextEntry()) != null) {
 				long hash = ModCandidate.hash(entry);
+
+				if (isSelfOrAncestor(hash)) {
+					Log.warn(LogCategory.DISCOVERY, "Skipping nested jar %s in %s: it contains itself", entry.getName(), parentPaths);
+					continue;
+				}
+
 				ModScanTask task = jijDedupMap.get(hash);
 
 				if (task == null) {
-					task = new ModScanTask(null, entry.getName(), entrySource.getInputStream(), hash, requiresRemap, parentPaths);
+					if (nestedJarDir != null) {
+						task = new ModScanTask(extractNestedJar(entrySource, hash), entry.getName(), hash, requiresRemap, parentPaths, this);
+					} else {
+						task = new ModScanTask(null, entry.getName(), entrySource.getInputStream(), hash, requiresRemap, parentPaths, this);
+					}
 					ModScanTask prev = jijDedupMap.putIfAbsent(hash, task);
 
 					if (prev != null) {
 						task = prev;
-					} else if (localTask == null) { // don't fork first task, leave it for this thread
-						localTask = task;
 					} else {
-						task.fork();
+						task.start();
 					}
 				}
 
 				tasks.add(task);
 			}
 
-			if (tasks.isEmpty()) return Collections.emptyList();
-
-			if (localTask != null) localTask.invoke();
-
 			return tasks;
 		}
 
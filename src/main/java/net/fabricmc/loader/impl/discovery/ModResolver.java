@@ -23,24 +23,36 @@ import net.fabricmc.loader.impl.discovery.ModSolver.InactiveReason;
 import net.fabricmc.loader.impl.metadata.ModDependencyImpl;
 import net.fabricmc.loader.impl.util.log.Log;
 import net.fabricmc.loader.impl.util.log.LogCategory;
+import net.xiaoyu233.fml.StartupMetrics;
 import org.sat4j.specs.ContradictionException;
 import org.sat4j.specs.TimeoutException;
 
+import java.nio.file.Path;
 import java.util.*;
 import java.util.stream.Collectors;
 
 public class ModResolver {
 	public static List<ModCandidate> resolve(Collection<ModCandidate> candidates, EnvType envType, Map<String, Set<ModCandidate>> envDisabledMods) throws ModResolutionException {
+		return resolve(candidates, envType, envDisabledMods, null);
+	}
+
+	/**
+	 * @param cacheFile file keeping the last solution across launches, or null to always solve from scratch
+	 */
+	public static List<ModCandidate> resolve(Collection<ModCandidate> candidates, EnvType envType, Map<String, Set<ModCandidate>> envDisabledMods, Path cacheFile) throws ModResolutionException {
 		long startTime = System.nanoTime();
-		List<ModCandidate> result = findCompatibleSet(candidates, envType, envDisabledMods);
+		SolutionCache cache = cacheFile != null ? SolutionCache.load(cacheFile) : null;
+		List<ModCandidate> result = findCompatibleSet(candidates, envType, envDisabledMods, cache);
+		if (cache != null) cache.save();
 
 		long endTime = System.nanoTime();
 		Log.debug(LogCategory.RESOLUTION, "Mod resolution time: %.1f ms", (endTime - startTime) * 1e-6);
+		StartupMetrics.record(StartupMetrics.RESOLUTION, endTime - startTime);
 
 		return result;
 	}
 
-	private static List<ModCandidate> findCompatibleSet(Collection<ModCandidate> candidates, EnvType envType, Map<String, Set<ModCandidate>> envDisabledMods) throws ModResolutionException {
+	private static List<ModCandidate> findCompatibleSet(Collection<ModCandidate> candidates, EnvType envType, Map<String, Set<ModCandidate>> envDisabledMods, SolutionCache cache) throws ModResolutionException {
 		// sort all mods by priority and group by id
 
 		List<ModCandidate> allModsSorted = new ArrayList<>(candidates);
@@ -108,9 +120,11 @@ public class ModResolver {
 
 		try {
 			result = ModSolver.solve(allModsSorted, modsById,
-					selectedMods, uniqueSelectedMods);
+					selectedMods, uniqueSelectedMods, cache);
 		} catch (ContradictionException | TimeoutException e) {
 			throw new ModResolutionException("Solving failed", e);
+		} finally {
+			ModSolver.recordTimings();
 		}
 
 		if (!result.success) {
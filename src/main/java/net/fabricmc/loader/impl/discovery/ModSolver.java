@@ -27,6 +27,7 @@ import net.fabricmc.loader.impl.util.log.Log;
 import net.fabricmc.loader.impl.util.log.LogCategory;
 import net.fabricmc.loader.impl.util.version.SemanticVersionImpl;
 import net.fabricmc.loader.impl.util.version.VersionPredicateParser;
+import net.xiaoyu233.fml.StartupMetrics;
 import org.sat4j.pb.IPBSolver;
 import org.sat4j.pb.SolverFactory;
 import org.sat4j.pb.tools.DependencyHelper;
@@ -58,9 +59,38 @@ final class ModSolver {
 	static long solutionAnalyzeTime;
 	static long fixSetupTime;
 	static long fixSolveTime;
+	static long fixEndTime;
 
+	/**
+	 * @param cache previous solution to reuse if the input is unchanged or to seed the solver with, may be null
+	 */
 	static Result solve(List<ModCandidate> allModsSorted, Map<String, List<ModCandidate>> modsById,
-			Map<String, ModCandidate> selectedMods, List<ModCandidate> uniqueSelectedMods) throws ContradictionException, TimeoutException, ModResolutionException {
+			Map<String, ModCandidate> selectedMods, List<ModCandidate> uniqueSelectedMods,
+			SolutionCache cache) throws ContradictionException, TimeoutException, ModResolutionException {
+		solverPrepTime = solveTime = solutionFetchTime = solutionAnalyzeTime = fixSetupTime = fixSolveTime = fixEndTime = 0;
+
+		// reuse the previous solution for unchanged input
+
+		SolutionCache.Input input = null;
+		List<ModCandidate> assumptions = Collections.emptyList();
+
+		if (cache != null) {
+			input = SolutionCache.Input.create(allModsSorted, modsById, uniqueSelectedMods);
+			List<ModCandidate> solution = cache.getSolution(input, allModsSorted);
+
+			if (solution != null) {
+				Log.debug(LogCategory.RESOLUTION, "Mod set unchanged, reusing the previous resolution");
+
+				for (ModCandidate mod : solution) {
+					ModResolver.selectMod(mod, selectedMods, uniqueSelectedMods);
+				}
+
+				return Result.createSuccess();
+			}
+
+			assumptions = cache.getAssumptions(input, allModsSorted);
+		}
+
 		// build priority index
 
 		Map<ModCandidate, Integer> priorities = new IdentityHashMap<>(allModsSorted.size());
@@ -89,7 +119,32 @@ final class ModSolver {
 
 		solveTime = System.nanoTime();
 
-		boolean hasSolution = dependencyHelper.hasASolution();
+		boolean hasSolution = false;
+
+		if (!assumptions.isEmpty()) {
+			// keep the previous choice for the mods unaffected by the changes, only solve the rest
+			try {
+				hasSolution = dependencyHelper.hasASolution(new ArrayList<DomainObject>(assumptions));
+			} catch (IllegalArgumentException e) {
+				// assumed mod isn't part of the model
+			}
+
+			if (hasSolution) {
+				Log.debug(LogCategory.RESOLUTION, "Solved keeping %d previously selected mods", assumptions.size());
+			} else {
+				Log.debug(LogCategory.RESOLUTION, "Previous mod selection doesn't fit anymore, solving from scratch");
+
+				dependencyHelper.reset();
+				dependencyHelper = createDepHelper(solver); // dependencyHelper.reset doesn't fully reset the dep helper
+
+				setupSolver(allModsSorted, modsById,
+						priorities, selectedMods, uniqueSelectedMods,
+						false, null, false,
+						dependencyHelper);
+			}
+		}
+
+		if (!hasSolution) hasSolution = dependencyHelper.hasASolution();
 
 		// check solution
 
@@ -99,16 +154,21 @@ final class ModSolver {
 			Collection<DomainObject> solution = dependencyHelper.getASolution();
 
 			solutionAnalyzeTime = System.nanoTime();
+			List<ModCandidate> solvedMods = new ArrayList<>();
 
 			for (DomainObject obj : solution) {
 				if (obj instanceof ModCandidate) {
 					ModResolver.selectMod((ModCandidate) obj, selectedMods, uniqueSelectedMods);
+					solvedMods.add((ModCandidate) obj);
 				} else {
 					assert obj instanceof OptionalDepVar;
 				}
 			}
 
 			dependencyHelper.reset();
+			fixEndTime = System.nanoTime(); // no fix needed, ends the analysis
+
+			if (cache != null) cache.put(input, solvedMods);
 
 			return Result.createSuccess();
 		} else { // no solution
@@ -132,12 +192,35 @@ final class ModSolver {
 					priorities, selectedMods,
 					failedDeps, dependencyHelper);
 
+			fixEndTime = System.nanoTime();
+
 			dependencyHelper.reset();
 
 			return Result.createFailure(reason, failedExplanations, fix);
 		}
 	}
 
+	/**
+	 * Reports the phases of the last {@link #solve} call to the startup metrics, phases that didn't run are skipped.
+	 */
+	static void recordTimings() {
+		recordTiming("solverPrep", solverPrepTime, solveTime);
+		recordTiming("solve", solveTime, solutionFetchTime);
+
+		if (solutionAnalyzeTime != 0) {
+			recordTiming("solutionFetch", solutionFetchTime, solutionAnalyzeTime);
+			recordTiming("solutionAnalyze", solutionAnalyzeTime, fixEndTime);
+		} else {
+			recordTiming("failureAnalyze", solutionFetchTime, fixSetupTime);
+			recordTiming("fixSetup", fixSetupTime, fixSolveTime);
+			recordTiming("fixSolve", fixSolveTime, fixEndTime);
+		}
+	}
+
+	private static void recordTiming(String phase, long start, long end) {
+		if (start != 0 && end != 0) StartupMetrics.record(StartupMetrics.RESOLUTION + "." + phase, end - start);
+	}
+
 	private static void computeFailureCausesOptional(List<ModCandidate> allModsSorted, Map<String, List<ModCandidate>> modsById,
 			Map<ModCandidate, Integer> priorities, Map<String, ModCandidate> selectedMods, List<ModCandidate> uniqueSelectedMods,
 			Set<Explanation> reason, DependencyHelper<DomainObject, Explanation> dependencyHelper,
@@ -0,0 +1,343 @@
+/*
+ * Copyright 2016 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.fabricmc.loader.impl.discovery;
+
+import net.fabricmc.loader.api.metadata.ModDependency;
+import net.fabricmc.loader.api.metadata.version.VersionPredicate;
+import net.fabricmc.loader.impl.util.log.Log;
+import net.fabricmc.loader.impl.util.log.LogCategory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
+
+/**
+ * Persistent result of the last successful {@link ModSolver} run, keyed by a fingerprint of the solver input.
+ *
+ * <p>The fingerprint covers every candidate in priority order with its id, version, origin, load condition, provides,
+ * dependencies (after overrides) and parents, so an unchanged mod set reuses the stored selection without building
+ * the SAT model. If only some mod ids changed, the previous selection of the ids that are not connected to a changed
+ * id through dependencies is returned as solver assumptions.
+ */
+final class SolutionCache {
+	private static final int MAGIC = 0x464D4C53;
+	private static final int FORMAT_VERSION = 1;
+
+	private final Path file;
+	private byte[] fingerprint; // null if nothing was solved yet
+	private Map<String, Long> idFingerprints = Collections.emptyMap();
+	private Map<String, Set<String>> idReferences = Collections.emptyMap();
+	private List<String> solution = Collections.emptyList();
+	private boolean dirty;
+
+	private SolutionCache(Path file) {
+		this.file = file;
+	}
+
+	static SolutionCache load(Path file) {
+		SolutionCache ret = new SolutionCache(file);
+
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+			if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) throw new IOException("unknown format");
+
+			byte[] fingerprint = new byte[in.readInt()];
+			in.readFully(fingerprint);
+
+			int idCount = in.readInt();
+			Map<String, Long> idFingerprints = new HashMap<>(idCount);
+			Map<String, Set<String>> idReferences = new HashMap<>(idCount);
+
+			for (int i = 0; i < idCount; i++) {
+				String id = in.readUTF();
+				idFingerprints.put(id, in.readLong());
+
+				int refCount = in.readInt();
+				Set<String> refs = new HashSet<>(refCount);
+
+				for (int j = 0; j < refCount; j++) {
+					refs.add(in.readUTF());
+				}
+
+				idReferences.put(id, refs);
+			}
+
+			int solutionCount = in.readInt();
+			List<String> solution = new ArrayList<>(solutionCount);
+
+			for (int i = 0; i < solutionCount; i++) {
+				solution.add(in.readUTF());
+			}
+
+			ret.fingerprint = fingerprint;
+			ret.idFingerprints = idFingerprints;
+			ret.idReferences = idReferences;
+			ret.solution = solution;
+		} catch (NoSuchFileException e) {
+			// first launch
+		} catch (IOException | RuntimeException e) {
+			Log.warn(LogCategory.RESOLUTION, "Discarding unreadable mod resolution cache %s", file, e);
+		}
+
+		return ret;
+	}
+
+	/**
+	 * @return the cached selection if the input is unchanged, or null if the solver has to run
+	 */
+	List<ModCandidate> getSolution(Input input, List<ModCandidate> allModsSorted) {
+		if (fingerprint == null || !Arrays.equals(fingerprint, input.fingerprint)) return null;
+
+		List<ModCandidate> ret = resolveKeys(allModsSorted, null);
+
+		return ret.size() == solution.size() ? ret : null;
+	}
+
+	/**
+	 * @return the previously selected mods whose ids are unaffected by the changes to the input, to be assumed by the
+	 * solver
+	 */
+	List<ModCandidate> getAssumptions(Input input, List<ModCandidate> allModsSorted) {
+		if (fingerprint == null) return Collections.emptyList();
+
+		Set<String> affected = new HashSet<>();
+		Queue<String> queue = new ArrayDeque<>();
+		Set<String> ids = new HashSet<>(idFingerprints.keySet());
+		ids.addAll(input.idFingerprints.keySet());
+
+		for (String id : ids) {
+			if (!Objects.equals(idFingerprints.get(id), input.idFingerprints.get(id)) && affected.add(id)) {
+				queue.add(id);
+			}
+		}
+
+		if (affected.isEmpty()) return Collections.emptyList(); // only the priorities changed
+
+		// a changed id can change the best choice of every id linked to it by a dependency in either direction
+
+		Map<String, Set<String>> links = new HashMap<>();
+
+		for (Map<String, Set<String>> references : Arrays.asList(idReferences, input.idReferences)) {
+			for (Map.Entry<String, Set<String>> entry : references.entrySet()) {
+				for (String ref : entry.getValue()) {
+					links.computeIfAbsent(entry.getKey(), ignore -> new HashSet<>()).add(ref);
+					links.computeIfAbsent(ref, ignore -> new HashSet<>()).add(entry.getKey());
+				}
+			}
+		}
+
+		String id;
+
+		while ((id = queue.poll()) != null) {
+			for (String linked : links.getOrDefault(id, Collections.emptySet())) {
+				if (affected.add(linked)) queue.add(linked);
+			}
+		}
+
+		return resolveKeys(allModsSorted, affected);
+	}
+
+	private List<ModCandidate> resolveKeys(List<ModCandidate> allModsSorted, Set<String> excludedIds) {
+		Map<String, ModCandidate> modsByKey = new HashMap<>(allModsSorted.size());
+
+		for (ModCandidate mod : allModsSorted) {
+			modsByKey.put(getKey(mod), mod);
+		}
+
+		List<ModCandidate> ret = new ArrayList<>(solution.size());
+
+		for (String key : solution) {
+			ModCandidate mod = modsByKey.get(key);
+			if (mod == null) continue;
+			if (excludedIds != null && (excludedIds.contains(mod.getId()) || !Collections.disjoint(excludedIds, mod.getProvides()))) continue;
+
+			ret.add(mod);
+		}
+
+		return ret;
+	}
+
+	void put(Input input, Collection<ModCandidate> solution) {
+		List<String> keys = new ArrayList<>(solution.size());
+
+		for (ModCandidate mod : solution) {
+			keys.add(getKey(mod));
+		}
+
+		this.fingerprint = input.fingerprint;
+		this.idFingerprints = input.idFingerprints;
+		this.idReferences = input.idReferences;
+		this.solution = keys;
+		dirty = true;
+	}
+
+	void save() {
+		if (!dirty) return;
+
+		try {
+			Files.createDirectories(file.getParent());
+			Path tmp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+				out.writeInt(MAGIC);
+				out.writeInt(FORMAT_VERSION);
+				out.writeInt(fingerprint.length);
+				out.write(fingerprint);
+				out.writeInt(idFingerprints.size());
+
+				for (Map.Entry<String, Long> entry : idFingerprints.entrySet()) {
+					Set<String> refs = idReferences.getOrDefault(entry.getKey(), Collections.emptySet());
+
+					out.writeUTF(entry.getKey());
+					out.writeLong(entry.getValue());
+					out.writeInt(refs.size());
+
+					for (String ref : refs) {
+						out.writeUTF(ref);
+					}
+				}
+
+				out.writeInt(solution.size());
+
+				for (String key : solution) {
+					out.writeUTF(key);
+				}
+			}
+
+			try {
+				Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+			}
+
+			dirty = false;
+		} catch (IOException e) {
+			Log.warn(LogCategory.RESOLUTION, "Error writing mod resolution cache %s", file, e);
+		}
+	}
+
+	/**
+	 * @return a key identifying the candidate across launches: id, version and the jar it comes from
+	 */
+	private static String getKey(ModCandidate mod) {
+		String origin = mod.hasPath() ? mod.getPaths().toString() : mod.getLocalPath() + "@" + Long.toHexString(mod.getHash());
+
+		return mod.getId() + " " + mod.getVersion().getFriendlyString() + " " + origin;
+	}
+
+	private static String describe(ModCandidate mod) {
+		StringBuilder sb = new StringBuilder(getKey(mod));
+		sb.append('\n').append(mod.getLoadCondition());
+		sb.append('\n').append(mod.getProvides());
+
+		for (ModDependency dep : mod.getDependencies()) {
+			sb.append('\n').append(dep.getKind().getKey()).append(' ').append(dep.getModId());
+
+			for (VersionPredicate predicate : dep.getVersionRequirements()) {
+				sb.append(' ').append(predicate);
+			}
+		}
+
+		for (ModCandidate parent : mod.getParentMods()) {
+			sb.append("\n< ").append(getKey(parent));
+		}
+
+		return sb.append("\n\n").toString();
+	}
+
+	/**
+	 * Fingerprint of the solver input.
+	 */
+	static final class Input {
+		final byte[] fingerprint;
+		final Map<String, Long> idFingerprints;
+		final Map<String, Set<String>> idReferences;
+
+		private Input(byte[] fingerprint, Map<String, Long> idFingerprints, Map<String, Set<String>> idReferences) {
+			this.fingerprint = fingerprint;
+			this.idFingerprints = idFingerprints;
+			this.idReferences = idReferences;
+		}
+
+		static Input create(List<ModCandidate> allModsSorted, Map<String, List<ModCandidate>> modsById, List<ModCandidate> preselectedMods) {
+			Map<ModCandidate, String> descriptions = new HashMap<>(allModsSorted.size());
+			MessageDigest digest = createDigest();
+			digest.update(ByteBuffer.allocate(4).putInt(FORMAT_VERSION).array());
+
+			for (ModCandidate mod : preselectedMods) {
+				digest.update(("!" + describe(mod)).getBytes(StandardCharsets.UTF_8));
+			}
+
+			for (ModCandidate mod : allModsSorted) { // in priority order
+				String description = describe(mod);
+				descriptions.put(mod, description);
+				digest.update(description.getBytes(StandardCharsets.UTF_8));
+			}
+
+			Map<String, Long> idFingerprints = new HashMap<>(modsById.size());
+			Map<String, Set<String>> idReferences = new HashMap<>(modsById.size());
+
+			for (Map.Entry<String, List<ModCandidate>> entry : modsById.entrySet()) {
+				MessageDigest idDigest = createDigest();
+				Set<String> refs = new HashSet<>();
+
+				for (ModCandidate mod : entry.getValue()) {
+					idDigest.update(descriptions.get(mod).getBytes(StandardCharsets.UTF_8));
+
+					for (ModDependency dep : mod.getDependencies()) {
+						refs.add(dep.getModId());
+					}
+				}
+
+				idFingerprints.put(entry.getKey(), ByteBuffer.wrap(idDigest.digest()).getLong());
+				idReferences.put(entry.getKey(), refs);
+			}
+
+			return new Input(digest.digest(), idFingerprints, idReferences);
+		}
+
+		private static MessageDigest createDigest() {
+			try {
+				return MessageDigest.getInstance("SHA-256");
+			} catch (NoSuchAlgorithmException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+	}
+}
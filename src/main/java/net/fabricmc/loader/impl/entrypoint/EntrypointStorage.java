@@ -24,6 +24,7 @@ import net.fabricmc.loader.impl.ModContainerImpl;
 import net.fabricmc.loader.impl.metadata.EntrypointMetadata;
 import net.fabricmc.loader.impl.util.log.Log;
 import net.fabricmc.loader.impl.util.log.LogCategory;
+import net.xiaoyu233.fml.StartupMetrics;
 import net.xiaoyu233.fml.relaunch.Launch;
 
 import java.util.*;
@@ -165,8 +166,10 @@ public final class EntrypointStorage {
 		@Override
 		public synchronized <T> T getOrCreate(Class<T> type) throws Exception {
 			if (object == null) {
+				long start = System.nanoTime();
 				net.fabricmc.loader.language.LanguageAdapter adapter = (net.fabricmc.loader.language.LanguageAdapter) Class.forName(languageAdapter, true, Launch.knotLoader.getClassLoader()).getConstructor().newInstance();
 				object = adapter.createInstance(value, options);
+				StartupMetrics.recordInstantiation(mod.getMetadata().getId(), System.nanoTime() - start);
 			}
 
 			if (object == null || !type.isAssignableFrom(object.getClass())) {
@@ -212,7 +215,9 @@ public final class EntrypointStorage {
 			T ret = (T) instanceMap.get(type);
 
 			if (ret == null) {
+				long start = System.nanoTime();
 				ret = adapter.create(mod, value, type);
+				StartupMetrics.recordInstantiation(mod.getMetadata().getId(), System.nanoTime() - start);
 				assert ret != null;
 				T prev = (T) instanceMap.putIfAbsent(type, ret);
 				if (prev != null) ret = prev;
@@ -274,6 +274,9 @@ public class JsonReader implements Closeable {
 	private String[] pathNames = new String[32];
 	private int[] pathIndices = new int[32];
 	private boolean rewindEnabled;
+	// Fabric - source of the value being captured by nextRawValue, the part compacted out of the buffer and its start in the buffer
+	private StringBuilder capture;
+	private int captureStart = -1;
 
 	{
 		stack[stackSize++] = JsonScope.EMPTY_DOCUMENT;
@@ -1275,6 +1278,12 @@ public class JsonReader implements Closeable {
 		char[] buffer = this.buffer;
 
 		if (!rewindEnabled) { // Fabric - preserve data for rewinding by expanding the buffer instead of compacting
+			if (captureStart >= 0) { // Fabric - keep the captured source before it's compacted out
+				if (capture == null) capture = new StringBuilder();
+				capture.append(buffer, captureStart, pos - captureStart);
+				captureStart = 0;
+			}
+
 			lineStart -= pos;
 			if (limit != pos) {
 				limit -= pos;
@@ -1614,4 +1623,47 @@ public class JsonReader implements Closeable {
 
 		rewindEnabled = value;
 	}
+
+	/**
+	 * Skips the next value like {@link #skipValue} and returns its JSON source, so it can be parsed later by a new
+	 * reader if needed. Objects, arrays and strings are returned as written, other literals in their normalized form.
+	 *
+	 * @throws UnsupportedOperationException if the value is an unquoted or single quoted string, only allowed when
+	 *     lenient
+	 */
+	public String nextRawValue() throws IOException {
+		int p = peeked;
+		if (p == PEEKED_NONE) {
+			p = doPeek();
+		}
+
+		switch (p) {
+		case PEEKED_BEGIN_OBJECT:
+		case PEEKED_BEGIN_ARRAY:
+		case PEEKED_DOUBLE_QUOTED:
+			captureStart = pos - 1; // the peek consumed the opening character
+
+			try {
+				skipValue();
+
+				return capture == null
+						? new String(buffer, captureStart, pos - captureStart)
+						: capture.append(buffer, captureStart, pos - captureStart).toString();
+			} finally {
+				capture = null;
+				captureStart = -1;
+			}
+		case PEEKED_TRUE:
+		case PEEKED_FALSE:
+			return Boolean.toString(nextBoolean());
+		case PEEKED_NULL:
+			nextNull();
+			return "null";
+		case PEEKED_LONG:
+		case PEEKED_NUMBER:
+			return nextString();
+		default:
+			throw new UnsupportedOperationException("Cannot capture " + peek() + locationString());
+		}
+	}
 }
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2016 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.fabricmc.loader.impl.metadata;
+
+import net.fabricmc.loader.api.metadata.CustomValue;
+import net.fabricmc.loader.impl.lib.gson.JsonReader;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+/**
+ * Custom value kept as its JSON source until its content is accessed, most custom values are never read.
+ */
+final class LazyCustomValue implements CustomValue {
+	private final CvType type;
+	private String source; // null once parsed
+	private volatile CustomValue value;
+
+	LazyCustomValue(String source) {
+		this.source = source;
+		this.type = getType(source);
+	}
+
+	private static CvType getType(String source) {
+		switch (source.charAt(0)) {
+		case '{':
+			return CvType.OBJECT;
+		case '[':
+			return CvType.ARRAY;
+		case '"':
+			return CvType.STRING;
+		case 't':
+		case 'f':
+			return CvType.BOOLEAN;
+		case 'n':
+			return CvType.NULL;
+		default:
+			return CvType.NUMBER;
+		}
+	}
+
+	private CustomValue get() {
+		CustomValue ret = value;
+		if (ret != null) return ret;
+
+		synchronized (this) {
+			if (value == null) {
+				try (JsonReader reader = new JsonReader(new StringReader(source))) {
+					value = CustomValueImpl.readCustomValue(reader);
+				} catch (IOException | ParseMetadataException e) {
+					throw new IllegalStateException("Custom value was already validated", e);
+				}
+
+				source = null;
+			}
+
+			return value;
+		}
+	}
+
+	@Override
+	public CvType getType() {
+		return type;
+	}
+
+	@Override
+	public CvObject getAsObject() {
+		return get().getAsObject();
+	}
+
+	@Override
+	public CvArray getAsArray() {
+		return get().getAsArray();
+	}
+
+	@Override
+	public String getAsString() {
+		return get().getAsString();
+	}
+
+	@Override
+	public Number getAsNumber() {
+		return get().getAsNumber();
+	}
+
+	@Override
+	public boolean getAsBoolean() {
+		return get().getAsBoolean();
+	}
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2016 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.fabricmc.loader.impl.metadata;
+
+import net.fabricmc.loader.impl.lib.gson.JsonReader;
+import net.fabricmc.loader.impl.util.log.Log;
+import net.fabricmc.loader.impl.util.log.LogCategory;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A section of a mod json that is only needed for display, such as the authors, contact or icon.
+ *
+ * <p>Outside of development the section is kept as its JSON source and parsed on first access. Errors found then
+ * are logged and the default value is used, since the mod was already accepted.
+ */
+final class LazySection<T> {
+	private final String name;
+	private final Parser<T> parser;
+	private final T defaultValue;
+	private String source; // null once parsed
+	private volatile T value;
+
+	private LazySection(String name, String source, Parser<T> parser, T defaultValue, T value) {
+		this.name = name;
+		this.source = source;
+		this.parser = parser;
+		this.defaultValue = defaultValue;
+		this.value = value;
+	}
+
+	static <T> LazySection<T> of(T value) {
+		return new LazySection<>(null, null, null, value, value);
+	}
+
+	static <T> LazySection<T> read(JsonReader reader, String name, boolean lazy, List<ParseWarning> warnings, Parser<T> parser, T defaultValue) throws IOException, ParseMetadataException {
+		if (!lazy) return of(parser.parse(reader, warnings));
+
+		return new LazySection<>(name, reader.nextRawValue(), parser, defaultValue, null);
+	}
+
+	T get(String modId) {
+		T ret = value;
+		if (ret != null) return ret;
+
+		synchronized (this) {
+			if (value == null) {
+				value = parse(modId);
+				source = null;
+			}
+
+			return value;
+		}
+	}
+
+	private T parse(String modId) {
+		List<ParseWarning> warnings = new ArrayList<>();
+
+		try (JsonReader reader = new JsonReader(new StringReader(source))) {
+			T ret = parser.parse(reader, warnings);
+			ModMetadataParser.logWarningMessages(modId, warnings);
+
+			return ret;
+		} catch (IOException | ParseMetadataException e) {
+			Log.warn(LogCategory.METADATA, "Ignoring invalid \"%s\" of mod %s", name, modId, e);
+
+			return defaultValue;
+		}
+	}
+
+	interface Parser<T> {
+		T parse(JsonReader reader, List<ParseWarning> warnings) throws IOException, ParseMetadataException;
+	}
+}
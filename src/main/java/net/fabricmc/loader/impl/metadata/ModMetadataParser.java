@@ -104,7 +104,7 @@ public final class ModMetadataParser {
 					if (firstField) {
 						reader.setRewindEnabled(false);
 						// Finish reading the metadata
-						LoaderModMetadata ret = readModMetadata(reader, schemaVersion);
+						LoaderModMetadata ret = readModMetadata(reader, schemaVersion, isDevelopment);
 						reader.endObject();
 
 						return ret;
@@ -127,7 +127,7 @@ public final class ModMetadataParser {
 			reader.setRewindEnabled(false);
 
 			reader.beginObject();
-			LoaderModMetadata ret = readModMetadata(reader, schemaVersion);
+			LoaderModMetadata ret = readModMetadata(reader, schemaVersion, isDevelopment);
 			reader.endObject();
 
 			if (isDevelopment) {
@@ -138,10 +138,11 @@ public final class ModMetadataParser {
 		}
 	}
 
-	private static LoaderModMetadata readModMetadata(JsonReader reader, int schemaVersion) throws IOException, ParseMetadataException {
+	private static LoaderModMetadata readModMetadata(JsonReader reader, int schemaVersion, boolean isDevelopment) throws IOException, ParseMetadataException {
 		switch (schemaVersion) {
 		case 1:
-			return V1ModMetadataParser.parse(reader);
+			// display only sections are validated eagerly in development only, so mod authors still see the errors early
+			return V1ModMetadataParser.parse(reader, !isDevelopment);
 		case 0:
 			return V0ModMetadataParser.parse(reader);
 		default:
@@ -44,11 +44,11 @@ final class V1ModMetadata extends AbstractModMetadata implements LoaderModMetada
 	/* @Nullable */
 	private final String name;
 	private final String description;
-	private final Collection<Person> authors;
-	private final Collection<Person> contributors;
-	private final ContactInformation contact;
+	private final LazySection<Collection<Person>> authors;
+	private final LazySection<Collection<Person>> contributors;
+	private final LazySection<ContactInformation> contact;
 	private final Collection<String> license;
-	private final IconEntry icon;
+	private final LazySection<IconEntry> icon;
 	// Optional (language adapter providers)
 	private final Map<String, String> languageAdapters;
 	// Optional (custom values)
@@ -62,7 +62,7 @@ final class V1ModMetadata extends AbstractModMetadata implements LoaderModMetada
 			Collection<MixinEntry> mixins, /* @Nullable */ String accessWidener,
 			Collection<ModDependency> dependencies, boolean hasRequires,
 			/* @Nullable */ String name, /* @Nullable */String description,
-			Collection<Person> authors, Collection<Person> contributors, /* @Nullable */ContactInformation contact, Collection<String> license, IconEntry icon,
+			LazySection<Collection<Person>> authors, LazySection<Collection<Person>> contributors, LazySection<ContactInformation> contact, Collection<String> license, LazySection<IconEntry> icon,
 			Map<String, String> languageAdapters,
 			Map<String, CustomValue> customValues) {
 		this.id = id;
@@ -84,22 +84,11 @@ final class V1ModMetadata extends AbstractModMetadata implements LoaderModMetada
 			this.description = "";
 		}
 
-		this.authors = Collections.unmodifiableCollection(authors);
-		this.contributors = Collections.unmodifiableCollection(contributors);
-
-		if (contact != null) {
-			this.contact = contact;
-		} else {
-			this.contact = ContactInformation.EMPTY;
-		}
-
+		this.authors = authors;
+		this.contributors = contributors;
+		this.contact = contact;
 		this.license = Collections.unmodifiableCollection(license);
-
-		if (icon != null) {
-			this.icon = icon;
-		} else {
-			this.icon = V1ModMetadata.NO_ICON;
-		}
+		this.icon = icon;
 
 		this.languageAdapters = Collections.unmodifiableMap(languageAdapters);
 		this.customValues = Collections.unmodifiableMap(customValues);
@@ -173,17 +162,17 @@ final class V1ModMetadata extends AbstractModMetadata implements LoaderModMetada
 
 	@Override
 	public Collection<Person> getAuthors() {
-		return this.authors;
+		return this.authors.get(this.id);
 	}
 
 	@Override
 	public Collection<Person> getContributors() {
-		return this.contributors;
+		return this.contributors.get(this.id);
 	}
 
 	@Override
 	public ContactInformation getContact() {
-		return this.contact;
+		return this.contact.get(this.id);
 	}
 
 	@Override
@@ -193,7 +182,7 @@ final class V1ModMetadata extends AbstractModMetadata implements LoaderModMetada
 
 	@Override
 	public Optional<String> getIconPath(int size) {
-		return this.icon.getIconPath(size);
+		return this.icon.get(this.id).getIconPath(size);
 	}
 
 	@Override
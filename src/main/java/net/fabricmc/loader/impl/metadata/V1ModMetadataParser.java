@@ -35,10 +35,11 @@ final class V1ModMetadataParser {
 	 *
 	 * @param logger the logger to print warnings to
 	 * @param reader the json reader to read the file with
+	 * @param lazy   whether to keep the custom values and the sections only used for display unparsed until accessed
 	 * @return the metadata of this file, null if the file could not be parsed
 	 * @throws IOException         if there was any issue reading the file
 	 */
-	static LoaderModMetadata parse(JsonReader reader) throws IOException, ParseMetadataException {
+	static LoaderModMetadata parse(JsonReader reader, boolean lazy) throws IOException, ParseMetadataException {
 		List<ParseWarning> warnings = new ArrayList<>();
 
 		// All the values the `fabric.mod.json` may contain:
@@ -64,11 +65,11 @@ final class V1ModMetadataParser {
 		// Optional (metadata)
 		String name = null;
 		String description = null;
-		List<Person> authors = new ArrayList<>();
-		List<Person> contributors = new ArrayList<>();
-		ContactInformation contact = null;
+		LazySection<Collection<Person>> authors = LazySection.of(Collections.emptyList());
+		LazySection<Collection<Person>> contributors = LazySection.of(Collections.emptyList());
+		LazySection<ContactInformation> contact = LazySection.of(ContactInformation.EMPTY);
 		List<String> license = new ArrayList<>();
-		V1ModMetadata.IconEntry icon = null;
+		LazySection<V1ModMetadata.IconEntry> icon = LazySection.of(V1ModMetadata.NO_ICON);
 
 		// Optional (language adapter providers)
 		Map<String, String> languageAdapters = new HashMap<>();
@@ -173,25 +174,25 @@ final class V1ModMetadataParser {
 				description = reader.nextString();
 				break;
 			case "authors":
-				readPeople(warnings, reader, authors);
+				authors = LazySection.read(reader, key, lazy, warnings, V1ModMetadataParser::readPeople, Collections.emptyList());
 				break;
 			case "contributors":
-				readPeople(warnings, reader, contributors);
+				contributors = LazySection.read(reader, key, lazy, warnings, V1ModMetadataParser::readPeople, Collections.emptyList());
 				break;
 			case "contact":
-				contact = readContactInfo(reader);
+				contact = LazySection.read(reader, key, lazy, warnings, (r, w) -> readContactInfo(r), ContactInformation.EMPTY);
 				break;
 			case "license":
 				readLicense(reader, license);
 				break;
 			case "icon":
-				icon = readIcon(reader);
+				icon = LazySection.read(reader, key, lazy, warnings, (r, w) -> readIcon(r), V1ModMetadata.NO_ICON);
 				break;
 			case "languageAdapters":
 				readLanguageAdapters(reader, languageAdapters);
 				break;
 			case "custom":
-				readCustomValues(reader, customValues);
+				readCustomValues(reader, customValues, lazy);
 				break;
 			default:
 				if (!ModMetadataParser.IGNORED_KEYS.contains(key)) {
@@ -467,11 +468,12 @@ final class V1ModMetadataParser {
 		reader.endObject();
 	}
 
-	private static void readPeople(List<ParseWarning> warnings, JsonReader reader, List<Person> people) throws IOException, ParseMetadataException {
+	private static Collection<Person> readPeople(JsonReader reader, List<ParseWarning> warnings) throws IOException, ParseMetadataException {
 		if (reader.peek() != JsonToken.BEGIN_ARRAY) {
 			throw new ParseMetadataException("List of people must be an array", reader);
 		}
 
+		List<Person> people = new ArrayList<>();
 		reader.beginArray();
 
 		while (reader.hasNext()) {
@@ -527,6 +529,8 @@ final class V1ModMetadataParser {
 		}
 
 		reader.endArray();
+
+		return Collections.unmodifiableList(people);
 	}
 
 	private static ContactInformation readContactInfo(JsonReader reader) throws IOException, ParseMetadataException {
@@ -640,7 +644,7 @@ final class V1ModMetadataParser {
 		reader.endObject();
 	}
 
-	private static void readCustomValues(JsonReader reader, Map<String, CustomValue> customValues) throws IOException, ParseMetadataException {
+	private static void readCustomValues(JsonReader reader, Map<String, CustomValue> customValues, boolean lazy) throws IOException, ParseMetadataException {
 		if (reader.peek() != JsonToken.BEGIN_OBJECT) {
 			throw new ParseMetadataException("Custom values must be in an object!", reader);
 		}
@@ -648,7 +652,8 @@ final class V1ModMetadataParser {
 		reader.beginObject();
 
 		while (reader.hasNext()) {
-			customValues.put(reader.nextName(), CustomValueImpl.readCustomValue(reader));
+			String key = reader.nextName();
+			customValues.put(key, lazy ? new LazyCustomValue(reader.nextRawValue()) : CustomValueImpl.readCustomValue(reader));
 		}
 
 		reader.endObject();
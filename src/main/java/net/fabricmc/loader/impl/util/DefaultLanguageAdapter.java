@@ -19,19 +19,38 @@ package net.fabricmc.loader.impl.util;
 import net.fabricmc.loader.api.LanguageAdapter;
 import net.fabricmc.loader.api.LanguageAdapterException;
 import net.fabricmc.loader.api.ModContainer;
+import net.fabricmc.loader.impl.util.log.Log;
+import net.fabricmc.loader.impl.util.log.LogCategory;
 import net.xiaoyu233.fml.relaunch.Launch;
 
+import java.lang.invoke.LambdaMetafactory;
 import java.lang.invoke.MethodHandle;
 import java.lang.invoke.MethodHandleProxies;
 import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Creates entrypoints from {@code pkg.Class}, {@code pkg.Class::field} and {@code pkg.Class::method} values.
+ *
+ * <p>Classes and their members are resolved once into method handles, shared by all entrypoint keys listing them. A
+ * method is adapted to the entrypoint interface through {@link LambdaMetafactory} when the class shares our module,
+ * otherwise or if the metafactory rejects it through {@link MethodHandleProxies}.
+ */
 public final class DefaultLanguageAdapter implements LanguageAdapter {
 	public static final DefaultLanguageAdapter INSTANCE = new DefaultLanguageAdapter();
+	private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+	// not computeIfAbsent, static initializers of entrypoint classes may create entrypoints themselves
+	private final Map<String, ClassInfo> classes = new ConcurrentHashMap<>();
 
 	private DefaultLanguageAdapter() { }
 
@@ -44,37 +63,91 @@ public final class DefaultLanguageAdapter implements LanguageAdapter {
 			throw new LanguageAdapterException("Invalid handle format: " + value);
 		}
 
-		Class<?> c;
+		ClassInfo info = getClassInfo(methodSplit[0]);
+
+		if (methodSplit.length == 1) {
+			if (type.isAssignableFrom(info.c)) {
+				return (T) info.newInstance();
+			} else {
+				throw new LanguageAdapterException("Class " + info.c.getName() + " cannot be cast to " + type.getName() + "!");
+			}
+		} else /* length == 2 */ {
+			Map<Class<?>, MemberFactory> factories = info.members.computeIfAbsent(methodSplit[1], ignore -> new ConcurrentHashMap<>());
+			MemberFactory factory = factories.get(type);
+
+			if (factory == null) {
+				factory = info.resolveMember(methodSplit[1], value, type);
+				factories.putIfAbsent(type, factory);
+			}
+
+			return (T) factory.create();
+		}
+	}
+
+	private ClassInfo getClassInfo(String name) throws LanguageAdapterException {
+		ClassInfo ret = classes.get(name);
+		if (ret != null) return ret;
 
 		try {
-			c = Class.forName(methodSplit[0], true, Launch.knotLoader.getClassLoader());
+			ret = new ClassInfo(Class.forName(name, true, Launch.knotLoader.getClassLoader()));
 		} catch (ClassNotFoundException e) {
 			throw new LanguageAdapterException(e);
 		}
 
-		if (methodSplit.length == 1) {
-			if (type.isAssignableFrom(c)) {
+		ClassInfo prev = classes.putIfAbsent(name, ret);
+
+		return prev != null ? prev : ret;
+	}
+
+	private static final class ClassInfo {
+		final Class<?> c;
+		final Map<String, Map<Class<?>, MemberFactory>> members = new ConcurrentHashMap<>();
+		private volatile MethodHandle constructor; // ()Object
+		private Map<String, List<Method>> methods; // by name, guarded by this
+
+		ClassInfo(Class<?> c) {
+			this.c = c;
+		}
+
+		Object newInstance() throws LanguageAdapterException {
+			MethodHandle handle = constructor;
+
+			if (handle == null) {
 				try {
-					return (T) c.getDeclaredConstructor().newInstance();
+					handle = LOOKUP.findConstructor(c, MethodType.methodType(void.class)).asType(MethodType.methodType(Object.class));
 				} catch (Exception e) {
 					throw new LanguageAdapterException(e);
 				}
-			} else {
-				throw new LanguageAdapterException("Class " + c.getName() + " cannot be cast to " + type.getName() + "!");
+
+				constructor = handle;
 			}
-		} else /* length == 2 */ {
-			List<Method> methodList = new ArrayList<>();
 
-			for (Method m : c.getDeclaredMethods()) {
-				if (!(m.getName().equals(methodSplit[1]))) {
-					continue;
+			try {
+				return (Object) handle.invokeExact();
+			} catch (Throwable t) {
+				throw new LanguageAdapterException(t);
+			}
+		}
+
+		synchronized List<Method> getMethods(String name) {
+			if (methods == null) {
+				Map<String, List<Method>> map = new HashMap<>();
+
+				for (Method m : c.getDeclaredMethods()) {
+					map.computeIfAbsent(m.getName(), ignore -> new ArrayList<>(1)).add(m);
 				}
 
-				methodList.add(m);
+				methods = map;
 			}
 
+			return methods.getOrDefault(name, Collections.emptyList());
+		}
+
+		MemberFactory resolveMember(String name, String value, Class<?> type) throws LanguageAdapterException {
+			List<Method> methodList = getMethods(name);
+
 			try {
-				Field field = c.getDeclaredField(methodSplit[1]);
+				Field field = c.getDeclaredField(name);
 				Class<?> fType = field.getType();
 
 				if ((field.getModifiers() & Modifier.STATIC) == 0) {
@@ -89,7 +162,9 @@ public final class DefaultLanguageAdapter implements LanguageAdapter {
 					throw new LanguageAdapterException("Field " + value + " cannot be cast to " + type.getName() + "!");
 				}
 
-				return (T) field.get(null);
+				MethodHandle getter = LOOKUP.unreflectGetter(field).asType(MethodType.methodType(Object.class));
+
+				return () -> invoke(getter);
 			} catch (NoSuchFieldException e) {
 				// ignore
 			} catch (IllegalAccessException e) {
@@ -107,35 +182,73 @@ public final class DefaultLanguageAdapter implements LanguageAdapter {
 			}
 
 			final Method targetMethod = methodList.get(0);
-			Object object = null;
-
-			if ((targetMethod.getModifiers() & Modifier.STATIC) == 0) {
-				try {
-					object = c.getDeclaredConstructor().newInstance();
-				} catch (Exception e) {
-					throw new LanguageAdapterException(e);
-				}
-			}
-
+			final boolean isStatic = (targetMethod.getModifiers() & Modifier.STATIC) != 0;
 			MethodHandle handle;
 
 			try {
-				handle = MethodHandles.lookup()
-						.unreflect(targetMethod);
+				handle = LOOKUP.unreflect(targetMethod);
 			} catch (Exception ex) {
 				throw new LanguageAdapterException(ex);
 			}
 
-			if (object != null) {
-				handle = handle.bindTo(object);
+			MethodHandle lambdaFactory = createLambdaFactory(type, handle, isStatic); // ()Object or (Object)Object
+
+			if (lambdaFactory != null) {
+				return isStatic ? () -> invoke(lambdaFactory) : () -> invoke(lambdaFactory.bindTo(newInstance()));
 			}
 
 			// uses proxy as well, but this handles default and object methods
+			return () -> {
+				try {
+					return MethodHandleProxies.asInterfaceInstance(type, isStatic ? handle : handle.bindTo(newInstance()));
+				} catch (LanguageAdapterException ex) {
+					throw ex;
+				} catch (Exception ex) {
+					throw new LanguageAdapterException(ex);
+				}
+			};
+		}
+
+		private MethodHandle createLambdaFactory(Class<?> type, MethodHandle handle, boolean isStatic) {
+			Method sam = null;
+
+			for (Method m : type.getMethods()) {
+				if (!Modifier.isAbstract(m.getModifiers())) continue;
+				if (sam != null) return null; // not a functional interface
+
+				sam = m;
+			}
+
+			if (sam == null) return null;
+
 			try {
-				return MethodHandleProxies.asInterfaceInstance(type, handle);
-			} catch (Exception ex) {
-				throw new LanguageAdapterException(ex);
+				// the lambda class is defined next to the target class, the handle was resolved with our own access
+				MethodHandles.Lookup caller = MethodHandles.privateLookupIn(c, LOOKUP);
+				if (!caller.hasFullPrivilegeAccess()) return null; // the metafactory rejects callers in another module
+
+				MethodType samType = MethodType.methodType(sam.getReturnType(), sam.getParameterTypes());
+				MethodType factoryType = isStatic ? MethodType.methodType(type) : MethodType.methodType(type, c);
+
+				return LambdaMetafactory.metafactory(caller, sam.getName(), factoryType, samType, handle, samType)
+						.getTarget()
+						.asType(factoryType.changeReturnType(Object.class).erase());
+			} catch (Throwable t) {
+				Log.debug(LogCategory.ENTRYPOINT, "Falling back to a proxy for %s: %s", handle, t);
+				return null;
 			}
 		}
+
+		private static Object invoke(MethodHandle handle) throws LanguageAdapterException {
+			try {
+				return (Object) handle.invokeExact();
+			} catch (Throwable t) {
+				throw new LanguageAdapterException(t);
+			}
+		}
+	}
+
+	@FunctionalInterface
+	private interface MemberFactory {
+		Object create() throws LanguageAdapterException;
 	}
 }
@@ -43,6 +43,9 @@ public class SemanticVersionImpl extends net.fabricmc.loader.util.version.Semant
 	private final String prerelease;
 	private final String build;
 	private String friendlyName;
+	// comparison keys, computed on first use since interned versions are compared far more often than parsed
+	private int hash;
+	private PrereleaseKey prereleaseKey;
 
 	public SemanticVersionImpl(String version, boolean storeX) throws VersionParsingException {
 		int buildDelimPos = version.indexOf('+');
@@ -205,7 +208,9 @@ public class SemanticVersionImpl extends net.fabricmc.loader.util.version.Semant
 
 	@Override
 	public boolean equals(Object o) {
-		if (!(o instanceof SemanticVersionImpl)) {
+		if (o == this) {
+			return true;
+		} else if (!(o instanceof SemanticVersionImpl)) {
 			return false;
 		} else {
 			SemanticVersionImpl other = (SemanticVersionImpl) o;
@@ -220,7 +225,14 @@ public class SemanticVersionImpl extends net.fabricmc.loader.util.version.Semant
 
 	@Override
 	public int hashCode() {
-		return Arrays.hashCode(components) * 73 + (prerelease != null ? prerelease.hashCode() * 11 : 0) + (build != null ? build.hashCode() : 0);
+		int ret = hash;
+
+		if (ret == 0) {
+			ret = Arrays.hashCode(components) * 73 + (prerelease != null ? prerelease.hashCode() * 11 : 0) + (build != null ? build.hashCode() : 0);
+			hash = ret;
+		}
+
+		return ret;
 	}
 
 	@Override
@@ -251,7 +263,9 @@ public class SemanticVersionImpl extends net.fabricmc.loader.util.version.Semant
 
 	@Override
 	public int compareTo(Version other) {
-		if (!(other instanceof SemanticVersion)) {
+		if (other == this) {
+			return 0;
+		} else if (!(other instanceof SemanticVersion)) {
 			return getFriendlyString().compareTo(other.getFriendlyString());
 		}
 
@@ -274,6 +288,10 @@ public class SemanticVersionImpl extends net.fabricmc.loader.util.version.Semant
 
 		if (prereleaseA.isPresent() || prereleaseB.isPresent()) {
 			if (prereleaseA.isPresent() && prereleaseB.isPresent()) {
+				if (o instanceof SemanticVersionImpl) {
+					return getPrereleaseKey0().compareTo(((SemanticVersionImpl) o).getPrereleaseKey0());
+				}
+
 				StringTokenizer prereleaseATokenizer = new StringTokenizer(prereleaseA.get(), ".");
 				StringTokenizer prereleaseBTokenizer = new StringTokenizer(prereleaseB.get(), ".");
 
@@ -312,4 +330,54 @@ public class SemanticVersionImpl extends net.fabricmc.loader.util.version.Semant
 			return 0;
 		}
 	}
+
+	private PrereleaseKey getPrereleaseKey0() {
+		PrereleaseKey ret = prereleaseKey;
+
+		if (ret == null) {
+			ret = new PrereleaseKey(prerelease);
+			prereleaseKey = ret;
+		}
+
+		return ret;
+	}
+
+	/**
+	 * Dot separated prerelease identifiers with their numeric flag, compared like the tokenizing path in compareTo.
+	 */
+	private static final class PrereleaseKey {
+		final String[] parts;
+		final boolean[] numeric;
+
+		PrereleaseKey(String prerelease) {
+			StringTokenizer tokenizer = new StringTokenizer(prerelease, ".");
+			parts = new String[tokenizer.countTokens()];
+			numeric = new boolean[parts.length];
+
+			for (int i = 0; i < parts.length; i++) {
+				parts[i] = tokenizer.nextToken();
+				numeric[i] = UNSIGNED_INTEGER.matcher(parts[i]).matches();
+			}
+		}
+
+		int compareTo(PrereleaseKey o) {
+			for (int i = 0; i < parts.length; i++) {
+				if (i >= o.parts.length) return 1;
+
+				if (numeric[i]) {
+					if (!o.numeric[i]) return -1;
+
+					int compare = Integer.compare(parts[i].length(), o.parts[i].length());
+					if (compare != 0) return compare;
+				} else if (o.numeric[i]) {
+					return 1;
+				}
+
+				int compare = parts[i].compareTo(o.parts[i]);
+				if (compare != 0) return compare;
+			}
+
+			return o.parts.length > parts.length ? -1 : 0;
+		}
+	}
 }
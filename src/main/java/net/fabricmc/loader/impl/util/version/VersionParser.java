@@ -20,13 +20,30 @@ import net.fabricmc.loader.api.SemanticVersion;
 import net.fabricmc.loader.api.Version;
 import net.fabricmc.loader.api.VersionParsingException;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Parses versions, interning the results since the same version strings are parsed over and over during discovery,
+ * resolution and on every login. Versions are immutable, so equal strings share one instance, which also lets
+ * {@code equals} and {@code compareTo} of equal versions return on the identity check.
+ */
 public final class VersionParser {
+	/**
+	 * Upper bound for each cache, versions sent by clients on login must not grow them without limit.
+	 */
+	static final int MAX_INTERNED = 8192;
+	private static final Map<String, Version> VERSIONS = new ConcurrentHashMap<>();
+	private static final Map<String, Version> X_VERSIONS = new ConcurrentHashMap<>(); // parsed with storeX
+
 	public static Version parse(String s, boolean storeX) throws VersionParsingException {
 		if (s == null || s.isEmpty()) {
 			throw new VersionParsingException("Version must be a non-empty string!");
 		}
 
-		Version version;
+		Map<String, Version> cache = storeX ? X_VERSIONS : VERSIONS;
+		Version version = cache.get(s);
+		if (version != null) return version;
 
 		try {
 			version = new SemanticVersionImpl(s, storeX);
@@ -34,7 +51,7 @@ public final class VersionParser {
 			version = new StringVersion(s);
 		}
 
-		return version;
+		return intern(cache, s, version);
 	}
 
 	public static SemanticVersion parseSemantic(String s) throws VersionParsingException {
@@ -42,6 +59,17 @@ public final class VersionParser {
 			throw new VersionParsingException("Version must be a non-empty string!");
 		}
 
-		return new SemanticVersionImpl(s, false);
+		Version version = VERSIONS.get(s);
+		if (version instanceof SemanticVersion) return (SemanticVersion) version;
+
+		return (SemanticVersion) intern(VERSIONS, s, new SemanticVersionImpl(s, false)); // equal strings parse to the same type
+	}
+
+	static <T> T intern(Map<String, T> cache, String key, T value) {
+		if (cache.size() >= MAX_INTERNED) return value;
+
+		T prev = cache.putIfAbsent(key, value);
+
+		return prev != null ? prev : value;
 	}
 }
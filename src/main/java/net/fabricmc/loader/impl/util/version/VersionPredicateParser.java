@@ -25,11 +25,20 @@ import net.fabricmc.loader.api.metadata.version.VersionPredicate;
 import net.fabricmc.loader.api.metadata.version.VersionPredicate.PredicateTerm;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 public final class VersionPredicateParser {
 	private static final VersionComparisonOperator[] OPERATORS = VersionComparisonOperator.values();
+	private static final Map<String, VersionPredicate> PREDICATES = new ConcurrentHashMap<>(); // predicates are immutable, see VersionParser
 
 	public static VersionPredicate parse(String predicate) throws VersionParsingException {
+		VersionPredicate ret = PREDICATES.get(predicate);
+		if (ret != null) return ret;
+
+		return VersionParser.intern(PREDICATES, predicate, parse0(predicate));
+	}
+
+	private static VersionPredicate parse0(String predicate) throws VersionParsingException {
 		List<SingleVersionPredicate> predicateList = new ArrayList<>();
 
 		for (String s : predicate.split(" ")) {
@@ -135,6 +144,7 @@ public final class VersionPredicateParser {
 	static class SingleVersionPredicate implements VersionPredicate, PredicateTerm {
 		private final VersionComparisonOperator operator;
 		private final Version refVersion;
+		private VersionInterval interval; // computed on first use, racing computations yield equal intervals
 
 		SingleVersionPredicate(VersionComparisonOperator operator, Version refVersion) {
 			this.operator = operator;
@@ -155,14 +165,21 @@ public final class VersionPredicateParser {
 
 		@Override
 		public VersionInterval getInterval() {
+			VersionInterval ret = interval;
+			if (ret != null) return ret;
+
 			if (refVersion instanceof SemanticVersion) {
 				SemanticVersion version = (SemanticVersion) refVersion;
 
-				return new VersionIntervalImpl(operator.minVersion(version), operator.isMinInclusive(),
+				ret = new VersionIntervalImpl(operator.minVersion(version), operator.isMinInclusive(),
 						operator.maxVersion(version), operator.isMaxInclusive());
 			} else {
-				return new VersionIntervalImpl(refVersion, true, refVersion, true);
+				ret = new VersionIntervalImpl(refVersion, true, refVersion, true);
 			}
+
+			interval = ret;
+
+			return ret;
 		}
 
 		@Override
@@ -199,6 +216,7 @@ public final class VersionPredicateParser {
 
 	static class MultiVersionPredicate implements VersionPredicate {
 		private final List<SingleVersionPredicate> predicates;
+		private VersionInterval interval;
 
 		MultiVersionPredicate(List<SingleVersionPredicate> predicates) {
 			this.predicates = predicates;
@@ -224,12 +242,17 @@ public final class VersionPredicateParser {
 		public VersionInterval getInterval() {
 			if (predicates.isEmpty()) return AnyVersionPredicate.INSTANCE.getInterval();
 
-			VersionInterval ret = predicates.get(0).getInterval();
+			VersionInterval ret = interval;
+			if (ret != null) return ret;
+
+			ret = predicates.get(0).getInterval();
 
 			for (int i = 1; i < predicates.size(); i++) {
 				ret = VersionIntervalImpl.and(ret, predicates.get(i).getInterval());
 			}
 
+			interval = ret;
+
 			return ret;
 		}
 
@@ -33,6 +33,7 @@ import net.fabricmc.loader.impl.util.SystemProperties;
 import net.fabricmc.loader.impl.util.log.Log;
 import net.fabricmc.loader.impl.util.log.LogCategory;
 import net.xiaoyu233.fml.config.ConfigRegistry;
+import net.xiaoyu233.fml.config.ConfigSnapshot;
 import net.xiaoyu233.fml.config.Configs;
 import net.xiaoyu233.fml.config.InjectionConfig;
 import net.xiaoyu233.fml.relaunch.Launch;
@@ -62,6 +63,7 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -85,6 +87,7 @@ public class FishModLoader {
    private static final Map<String, LanguageAdapter> adapterMap = new HashMap<>();
    private static final EntrypointStorage entrypointStorage = new EntrypointStorage();
    private static final AccessWidener accessWidener = new AccessWidener();
+   private static final Set<Config> mixinConfigs = new LinkedHashSet<>();
    private static boolean frozen;
    private static final boolean IS_DEVELOPMENT = Boolean.parseBoolean(System.getProperty(SystemProperties.DEVELOPMENT, "false"));
 
@@ -95,10 +98,13 @@ public class FishModLoader {
       }
    }
    private static Path gameJarPath;
+   private static ModDiscoverer discoverer;
 
    public static void addConfigRegistry(ConfigRegistry configRegistry){
-      if (!ALL_REGISTRIES.contains(configRegistry)){
-         ALL_REGISTRIES.add(configRegistry);
+      synchronized (ALL_REGISTRIES) { // main entrypoints may run in parallel
+         if (!ALL_REGISTRIES.contains(configRegistry)){
+            ALL_REGISTRIES.add(configRegistry);
+         }
       }
    }
 
@@ -107,7 +113,17 @@ public class FishModLoader {
    }
 
    public static void reloadAllConfigs(){
-      for (ConfigRegistry configRegistry : ALL_REGISTRIES) {
+      List<ConfigRegistry> registries;
+      synchronized (ALL_REGISTRIES) {
+         registries = new ArrayList<>(ALL_REGISTRIES);
+      }
+      //Read the files in parallel, applying them stays on this thread
+      if (Configs.ModLoading.CONFIG_PREFETCH.get()) {
+         for (ConfigRegistry configRegistry : registries) {
+            ConfigSnapshot.prefetch(configRegistry.getPathToConfigFile().toPath());
+         }
+      }
+      for (ConfigRegistry configRegistry : registries) {
          configRegistry.reloadConfig();
       }
    }
@@ -255,6 +271,7 @@ public class FishModLoader {
    }
 
    public static void initModMixin() {
+      long start = StartupMetrics.begin();
       System.setProperty("mixin.bootstrapService", net.xiaoyu233.fml.mixin.service.MixinServiceBootstrap.class.getName());
       System.setProperty("mixin.service", net.xiaoyu233.fml.mixin.service.MixinService.class.getName());
 
@@ -276,11 +293,23 @@ public class FishModLoader {
       }
 
       for (Config config : Mixins.getConfigs()) {
+         mixinConfigs.add(config);
          ModContainerImpl mod = configToModMap.get(config.getName());
          if (mod == null) continue;
       }
 
       finishMixinBootstrapping();
+      StartupMetrics.end(StartupMetrics.MIXIN_INIT, start);
+   }
+
+   /**
+    * Mixin drops configs from {@link Mixins#getConfigs()} once they are selected, so the configs seen
+    * during bootstrap are kept here and merged with any registered later.
+    */
+   public static Set<Config> getMixinConfigs() {
+      Set<Config> configs = new LinkedHashSet<>(mixinConfigs);
+      configs.addAll(Mixins.getConfigs());
+      return configs;
    }
 
    public static boolean hasEntrypoints(String key) {
@@ -293,15 +322,21 @@ public class FishModLoader {
          return;
       }
 
+      long stageStart = StartupMetrics.begin();
       RuntimeException exception = null;
       Collection<EntrypointContainer<T>> entrypoints = getEntrypointContainers(key, type);
 
       Log.debug(LogCategory.ENTRYPOINT, "Iterating over entrypoint '%s'", key);
 
+      Map<EntrypointContainer<T>, Throwable> failures = null;
+      if (Configs.ModLoading.PARALLEL_ENTRYPOINTS.get() && ParallelEntrypoints.hasParallel(key, entrypoints)) {
+         failures = ParallelEntrypoints.invoke(key, entrypoints, container -> invokeEntrypoint(key, container, invoker));
+      }
+
       for (EntrypointContainer<T> container : entrypoints) {
-         try {
-            invoker.accept(container.getEntrypoint());
-         } catch (Throwable t) {
+         // failures are gathered in load order either way
+         Throwable t = failures != null ? failures.get(container) : invokeEntrypoint(key, container, invoker);
+         if (t != null) {
             exception = ExceptionUtil.gatherExceptions(t,
                     exception,
                     exc -> new RuntimeException(String.format("Could not execute entrypoint stage '%s' due to errors, provided by '%s'!",
@@ -310,11 +345,24 @@ public class FishModLoader {
          }
       }
 
+      StartupMetrics.end(StartupMetrics.ENTRYPOINT_PREFIX + key, stageStart);
       if (exception != null) {
          throw exception;
       }
    }
 
+   private static <T> Throwable invokeEntrypoint(String key, EntrypointContainer<T> container, Consumer<? super T> invoker) {
+      long start = StartupMetrics.begin();
+      try {
+         invoker.accept(container.getEntrypoint());
+         return null;
+      } catch (Throwable t) {
+         return t;
+      } finally {
+         StartupMetrics.recordEntrypoint(key, container.getProvider().getMetadata().getId(), System.nanoTime() - start);
+      }
+   }
+
    public static <T> List<EntrypointContainer<T>> getEntrypointContainers(String key, Class<T> type) {
       return entrypointStorage.getEntrypointContainers(key, type);
    }
@@ -335,6 +383,7 @@ public class FishModLoader {
    }
 
    public static void loadAccessWideners() {
+      long start = StartupMetrics.begin();
       AccessWidenerReader accessWidenerReader = new AccessWidenerReader(accessWidener);
 
       for (net.fabricmc.loader.api.ModContainer modContainer : mods) {
@@ -351,6 +400,7 @@ public class FishModLoader {
             throw new RuntimeException("Failed to read accessWidener file from mod " + modMetadata.getId(), e);
          }
       }
+      StartupMetrics.end(StartupMetrics.ACCESS_WIDENER, start);
    }
 
    public static ImmutableMap<String, ModContainerImpl> getModsMap() {
@@ -386,9 +436,14 @@ public class FishModLoader {
       Configs.loadConfig();
    }
 
-   public static void setup(Path gameJarPath) throws ModResolutionException {
-      FishModLoader.gameJarPath = gameJarPath;
+   /**
+    * Loads the config and starts scanning the mod jars in the background, so the scan overlaps with the game jar
+    * remapping. {@link #setup} collects the results.
+    */
+   public static void startModDiscovery() {
       FishModLoader.loadConfig();
+      //The configs the mods registered last time are read until their entrypoints need them
+      ConfigSnapshot.prefetchRegistered();
 
       //Start mod discovery
       boolean remapRegularMods = FishModLoader.isDevelopmentEnvironment();
@@ -401,9 +456,29 @@ public class FishModLoader {
       discoverer.addCandidateFinder(new ClasspathModCandidateFinder());
       discoverer.addCandidateFinder(new DirectoryModCandidateFinder(FishModLoader.MOD_DIR.toPath(), remapRegularMods));
       discoverer.addCandidateFinder(new ArgumentModCandidateFinder(remapRegularMods));
+      if (Configs.ModLoading.DISCOVERY_CACHE.get()) {
+         discoverer.enableDiscoveryCache(Path.of(Launch.minecraftHome, ".fml", "discoveryCache.bin"));
+      }
+      try {
+         discoverer.setNestedJarDir(Path.of(Launch.minecraftHome, ".fml", "jij"));
+      } catch (IOException e) {
+         LOGGER.warn("Cannot create the nested jar directory, nested jars will be read into memory", e);
+      }
+      discoverer.startScanning();
+      FishModLoader.discoverer = discoverer;
+   }
+
+   public static void setup(Path gameJarPath) throws ModResolutionException {
+      FishModLoader.gameJarPath = gameJarPath;
+      if (discoverer == null) {
+         startModDiscovery();
+      }
+
       HashMap<String, Set<ModCandidate>> envDisabledModsOut = new HashMap<>();
       List<ModCandidate> modCandidates = discoverer.discoverMods(envDisabledModsOut);
-      modCandidates = ModResolver.resolve(modCandidates, FishModLoader.getEnvironmentType(), envDisabledModsOut);
+      discoverer = null;
+      Path resolutionCache = Configs.ModLoading.RESOLUTION_CACHE.get() ? Path.of(Launch.minecraftHome, ".fml", "resolutionCache.bin") : null;
+      modCandidates = ModResolver.resolve(modCandidates, FishModLoader.getEnvironmentType(), envDisabledModsOut, resolutionCache);
       dumpModList(modCandidates);
       for (ModCandidate modCandidate : modCandidates) {
          if (!modCandidate.hasPath() && !modCandidate.isBuiltin()) {
@@ -0,0 +1,186 @@
+package net.xiaoyu233.fml;
+
+import net.fabricmc.loader.api.ModContainer;
+import net.fabricmc.loader.api.entrypoint.EntrypointContainer;
+import net.fabricmc.loader.api.metadata.CustomValue;
+import net.fabricmc.loader.api.metadata.ModDependency;
+import net.xiaoyu233.fml.relaunch.Launch;
+import net.xiaoyu233.fml.util.LoaderExecutor;
+import net.xiaoyu233.fml.util.Log;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Runs the entrypoints of one key, the ones of mods that declared them parallel-safe on {@link LoaderExecutor}.
+ *
+ * <p>A mod opts in per entrypoint key with {@code "custom": {"fml:parallelEntrypoints": ["main"]}} in its
+ * {@code fabric.mod.json}. Every mod starts only after the mods it depends on (also through provides) finished the
+ * same key. The other mods keep running on the calling thread in dependency order and act as barriers: each waits for
+ * every mod before it and the mods after it start only once it finished, so a mod that did not opt in never runs
+ * concurrently with another one. Dependency cycles are broken at the mod that comes first in load order.
+ *
+ * <p>The pool threads run the entrypoints with the game class loader as context class loader, like the calling thread.
+ */
+final class ParallelEntrypoints {
+    static final String CUSTOM_KEY = "fml:parallelEntrypoints";
+
+    private ParallelEntrypoints() {
+    }
+
+    static boolean isParallel(ModContainer mod, String key) {
+        CustomValue value = mod.getMetadata().getCustomValue(CUSTOM_KEY);
+        if (value == null) {
+            return false;
+        }
+        try {
+            for (CustomValue entry : value.getAsArray()) {
+                if (key.equals(entry.getAsString())) {
+                    return true;
+                }
+            }
+        } catch (ClassCastException e) {
+            Log.warn("Ignoring malformed {} of mod {}: {}", CUSTOM_KEY, mod.getMetadata().getId(), e.getMessage());
+        }
+        return false;
+    }
+
+    static <T> boolean hasParallel(String key, Collection<EntrypointContainer<T>> entrypoints) {
+        for (EntrypointContainer<T> container : entrypoints) {
+            if (isParallel(container.getProvider(), key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param runner runs one entrypoint and returns what it threw, or null
+     * @return what each failed entrypoint threw
+     */
+    static <T> Map<EntrypointContainer<T>, Throwable> invoke(String key, Collection<EntrypointContainer<T>> entrypoints,
+                                                           Function<EntrypointContainer<T>, Throwable> runner) {
+        Map<ModContainer, List<EntrypointContainer<T>>> byMod = new LinkedHashMap<>();
+        for (EntrypointContainer<T> container : entrypoints) {
+            byMod.computeIfAbsent(container.getProvider(), mod -> new ArrayList<>()).add(container);
+        }
+
+        List<ModContainer> order = sort(byMod.keySet());
+        Map<ModContainer, Integer> positions = new HashMap<>();
+        for (int i = 0; i < order.size(); i++) {
+            positions.put(order.get(i), i);
+        }
+
+        Map<EntrypointContainer<T>, Throwable> failures = new ConcurrentHashMap<>();
+        Map<ModContainer, CompletableFuture<Void>> done = new HashMap<>();
+        for (ModContainer mod : order) {
+            done.put(mod, new CompletableFuture<>());
+        }
+
+        Log.info("Running entrypoint '{}' of {} mods in parallel", key, order.stream().filter(mod -> isParallel(mod, key)).count());
+
+        // a mod only waits for mods sorted before it, so this thread never waits for a mod it has yet to start itself
+        List<CompletableFuture<Void>> running = new ArrayList<>();
+        for (ModContainer mod : order) {
+            if (isParallel(mod, key)) {
+                CompletableFuture.allOf(getDependencies(mod, positions, done))
+                        .thenRunAsync(() -> runOnWorker(byMod.get(mod), runner, failures), LoaderExecutor.get())
+                        .whenComplete((ignored, t) -> done.get(mod).complete(null));
+                running.add(done.get(mod));
+            } else {
+                CompletableFuture.allOf(running.toArray(new CompletableFuture[0])).join();
+                running.clear();
+                run(byMod.get(mod), runner, failures);
+                done.get(mod).complete(null);
+            }
+        }
+
+        CompletableFuture.allOf(done.values().toArray(new CompletableFuture[0])).join();
+        return failures;
+    }
+
+    private static <T> void runOnWorker(List<EntrypointContainer<T>> containers, Function<EntrypointContainer<T>, Throwable> runner,
+                                        Map<EntrypointContainer<T>, Throwable> failures) {
+        Thread thread = Thread.currentThread();
+        ClassLoader previous = thread.getContextClassLoader();
+        thread.setContextClassLoader(Launch.knotLoader.getClassLoader());
+        try {
+            run(containers, runner, failures);
+        } finally {
+            thread.setContextClassLoader(previous);
+        }
+    }
+
+    private static <T> void run(List<EntrypointContainer<T>> containers, Function<EntrypointContainer<T>, Throwable> runner,
+                                Map<EntrypointContainer<T>, Throwable> failures) {
+        for (EntrypointContainer<T> container : containers) {
+            Throwable t = runner.apply(container);
+            if (t != null) {
+                failures.put(container, t);
+            }
+        }
+    }
+
+    private static CompletableFuture<?>[] getDependencies(ModContainer mod, Map<ModContainer, Integer> positions,
+                                                         Map<ModContainer, CompletableFuture<Void>> done) {
+        int position = positions.get(mod);
+        List<CompletableFuture<?>> ret = new ArrayList<>();
+        for (ModContainer dep : getDependencies(mod, positions.keySet())) {
+            if (positions.get(dep) < position) { // the others close a cycle
+                ret.add(done.get(dep));
+            }
+        }
+        return ret.toArray(new CompletableFuture[0]);
+    }
+
+    private static Set<ModContainer> getDependencies(ModContainer mod, Set<ModContainer> mods) {
+        Set<ModContainer> ret = new LinkedHashSet<>();
+        for (ModDependency dependency : mod.getMetadata().getDependencies()) {
+            if (!dependency.getKind().isPositive()) {
+                continue;
+            }
+            FishModLoader.getModContainer(dependency.getModId())
+                    .filter(dep -> dep != mod && mods.contains(dep))
+                    .ifPresent(ret::add);
+        }
+        return ret;
+    }
+
+    /**
+     * @return the mods with each one after its dependencies, otherwise in load order
+     */
+    private static List<ModContainer> sort(Set<ModContainer> mods) {
+        Map<ModContainer, Set<ModContainer>> pending = new IdentityHashMap<>();
+        for (ModContainer mod : mods) {
+            pending.put(mod, getDependencies(mod, mods));
+        }
+
+        List<ModContainer> remaining = new ArrayList<>(mods);
+        List<ModContainer> ret = new ArrayList<>(mods.size());
+        while (!remaining.isEmpty()) {
+            ModContainer next = remaining.get(0); // breaks a cycle if no mod is ready
+            for (ModContainer mod : remaining) {
+                if (pending.get(mod).isEmpty()) {
+                    next = mod;
+                    break;
+                }
+            }
+            remaining.remove(next);
+            ret.add(next);
+            for (ModContainer mod : remaining) {
+                pending.get(mod).remove(next);
+            }
+        }
+        return ret;
+    }
+}
@@ -0,0 +1,283 @@
+package net.xiaoyu233.fml;
+
+import com.google.gson.stream.JsonWriter;
+import net.xiaoyu233.fml.config.Configs;
+import net.xiaoyu233.fml.relaunch.Launch;
+import net.xiaoyu233.fml.util.Log;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Durations of the loader's startup stages and of each mod's entrypoints.
+ *
+ * <p>Stages are kept in the order they were first recorded, a stage recorded twice accumulates. Once the game reaches
+ * the main menu or the dedicated server has started, a summary is logged and everything is written to
+ * {@code .fml/startupMetrics.json}, so the file of the last launch can be compared across pack updates. The same data
+ * is shown by the {@code fml stats} command.
+ *
+ * <p>Entrypoint times include the instantiation by the language adapter, which is also recorded on its own. An
+ * entrypoint slower than {@code ModLoading.slowEntrypointThreshold} is logged right away and marked in the ranking of
+ * the mods by their total entrypoint time.
+ */
+public final class StartupMetrics {
+    public static final String DISCOVERY = "discovery";
+    public static final String RESOLUTION = "resolution";
+    public static final String REMAP = "remap";
+    public static final String ACCESS_WIDENER = "accessWidener";
+    public static final String MIXIN_INIT = "mixinInit";
+    public static final String ENTRYPOINT_PREFIX = "entrypoint:";
+    private static final long origin = System.nanoTime();
+    private static final Map<String, Long> stages = new LinkedHashMap<>();
+    private static final Map<String, Map<String, Long>> entrypoints = new LinkedHashMap<>();
+    private static final Map<String, Long> instantiations = new LinkedHashMap<>();
+    private static final Map<String, Long> slowestEntrypoints = new LinkedHashMap<>();
+    private static final AtomicBoolean finished = new AtomicBoolean();
+    private static volatile long totalTime;
+    private static volatile String milestone;
+
+    private StartupMetrics() {
+    }
+
+    /**
+     * @return the start timestamp to pass to {@link #end}
+     */
+    public static long begin() {
+        return System.nanoTime();
+    }
+
+    public static void end(String stage, long start) {
+        record(stage, System.nanoTime() - start);
+    }
+
+    public static synchronized void record(String stage, long nanos) {
+        stages.merge(stage, nanos, Long::sum);
+    }
+
+    public static void recordEntrypoint(String key, String modId, long nanos) {
+        synchronized (StartupMetrics.class) {
+            entrypoints.computeIfAbsent(key, k -> new LinkedHashMap<>()).merge(modId, nanos, Long::sum);
+            slowestEntrypoints.merge(modId, nanos, Math::max);
+        }
+        if (isSlow(nanos)) {
+            Log.warn("Entrypoint '{}' of mod {} took {} ms", key, modId, String.format("%.1f", nanos / 1e6D));
+        }
+    }
+
+    public static synchronized void recordInstantiation(String modId, long nanos) {
+        instantiations.merge(modId, nanos, Long::sum);
+    }
+
+    private static boolean isSlow(long nanos) {
+        int threshold = Configs.ModLoading.SLOW_ENTRYPOINT_THRESHOLD.get();
+        return threshold > 0 && nanos > threshold * 1_000_000L;
+    }
+
+    /**
+     * @return the duration of each stage in nanoseconds, in the order the stages were first recorded
+     */
+    public static synchronized Map<String, Long> getStageTimes() {
+        return Collections.unmodifiableMap(new LinkedHashMap<>(stages));
+    }
+
+    /**
+     * @return the nanoseconds each mod spent in the entrypoints of each key
+     */
+    public static synchronized Map<String, Map<String, Long>> getEntrypointTimes() {
+        Map<String, Map<String, Long>> copy = new LinkedHashMap<>();
+        for (Map.Entry<String, Map<String, Long>> entry : entrypoints.entrySet()) {
+            copy.put(entry.getKey(), Collections.unmodifiableMap(new LinkedHashMap<>(entry.getValue())));
+        }
+        return Collections.unmodifiableMap(copy);
+    }
+
+    /**
+     * @return the nanoseconds each mod spent instantiating its entrypoints
+     */
+    public static synchronized Map<String, Long> getInstantiationTimes() {
+        return Collections.unmodifiableMap(new LinkedHashMap<>(instantiations));
+    }
+
+    /**
+     * @return every mod with entrypoints, the slowest first
+     */
+    public static synchronized List<ModTime> getModTimes() {
+        Map<String, Map<String, Long>> byMod = new LinkedHashMap<>();
+        for (Map.Entry<String, Map<String, Long>> key : entrypoints.entrySet()) {
+            for (Map.Entry<String, Long> mod : key.getValue().entrySet()) {
+                byMod.computeIfAbsent(mod.getKey(), k -> new LinkedHashMap<>()).put(key.getKey(), mod.getValue());
+            }
+        }
+        List<ModTime> ret = new ArrayList<>(byMod.size());
+        for (Map.Entry<String, Map<String, Long>> mod : byMod.entrySet()) {
+            ret.add(new ModTime(mod.getKey(), mod.getValue(), instantiations.getOrDefault(mod.getKey(), 0L),
+                    slowestEntrypoints.getOrDefault(mod.getKey(), 0L)));
+        }
+        ret.sort(Comparator.comparingLong(ModTime::getTotal).reversed());
+        return Collections.unmodifiableList(ret);
+    }
+
+    /**
+     * @return the time from loader start until the game reached the main menu or started the server, or -1 if it
+     * did not yet
+     */
+    public static long getTotalTime() {
+        return finished.get() ? totalTime : -1L;
+    }
+
+    /**
+     * Logs the summary and writes the metrics file, only the first call has any effect.
+     *
+     * @param milestone what the game just reached, used in the log
+     */
+    public static void finish(String milestone) {
+        if (!finished.compareAndSet(false, true)) {
+            return;
+        }
+        totalTime = System.nanoTime() - origin;
+        StartupMetrics.milestone = milestone;
+
+        Log.info(summarize());
+        try {
+            Path file = dump();
+            Log.info("Startup metrics written to {}", file);
+        } catch (IOException e) {
+            Log.warn("Cannot write startup metrics", e);
+        }
+    }
+
+    public static Path dump() throws IOException {
+        Path file = Path.of(Launch.minecraftHome, ".fml", "startupMetrics.json");
+        Files.createDirectories(file.getParent());
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writeJson(writer);
+        }
+        return file;
+    }
+
+    public static synchronized void writeJson(Writer out) throws IOException {
+        JsonWriter writer = new JsonWriter(out);
+        writer.setIndent("  ");
+        writer.beginObject();
+        if (finished.get()) {
+            writer.name("milestone").value(milestone);
+            writer.name("totalMs").value(totalTime / 1e6D);
+        }
+        writer.name("stagesMs").beginObject();
+        for (Map.Entry<String, Long> entry : stages.entrySet()) {
+            writer.name(entry.getKey()).value(entry.getValue() / 1e6D);
+        }
+        writer.endObject();
+        writer.name("entrypointsMs").beginObject();
+        for (Map.Entry<String, Map<String, Long>> key : entrypoints.entrySet()) {
+            writer.name(key.getKey()).beginObject();
+            for (Map.Entry<String, Long> mod : key.getValue().entrySet()) {
+                writer.name(mod.getKey()).value(mod.getValue() / 1e6D);
+            }
+            writer.endObject();
+        }
+        writer.endObject();
+        writer.name("instantiationMs").beginObject();
+        for (Map.Entry<String, Long> entry : instantiations.entrySet()) {
+            writer.name(entry.getKey()).value(entry.getValue() / 1e6D);
+        }
+        writer.endObject();
+        writer.name("slowEntrypointThresholdMs").value(Configs.ModLoading.SLOW_ENTRYPOINT_THRESHOLD.get());
+        writer.endObject();
+        writer.flush();
+    }
+
+    public static synchronized String summarize() {
+        StringBuilder builder = new StringBuilder("Startup metrics");
+        if (finished.get()) {
+            builder.append(String.format(" (%.1f ms until %s)", totalTime / 1e6D, milestone));
+        }
+        builder.append(":\n");
+        for (Map.Entry<String, Long> entry : stages.entrySet()) {
+            builder.append(String.format("  %-32s %10.1f ms%n", entry.getKey(), entry.getValue() / 1e6D));
+        }
+        for (Map.Entry<String, Map<String, Long>> key : entrypoints.entrySet()) {
+            builder.append("  Entrypoint '").append(key.getKey()).append("' by mod:\n");
+            key.getValue().entrySet().stream()
+                    .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                    .forEach(mod -> builder.append(String.format("    %10.2f ms  %s%n", mod.getValue() / 1e6D, mod.getKey())));
+        }
+        List<ModTime> mods = getModTimes();
+        if (!mods.isEmpty()) {
+            builder.append("  Mods by entrypoint time (* = an entrypoint over the threshold):\n");
+            builder.append(String.format("    %4s  %10s  %10s  %s%n", "#", "total ms", "create ms", "mod"));
+            for (int i = 0; i < mods.size(); i++) {
+                ModTime mod = mods.get(i);
+                builder.append(String.format("    %4d  %10.2f  %10.2f  %s%s%n", i + 1, mod.getTotal() / 1e6D,
+                        mod.getInstantiation() / 1e6D, mod.getModId(), mod.isSlow() ? " *" : ""));
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Entrypoint times of one mod.
+     */
+    public static final class ModTime {
+        private final String modId;
+        private final Map<String, Long> entrypoints;
+        private final long instantiation;
+        private final long slowest;
+        private final long total;
+
+        ModTime(String modId, Map<String, Long> entrypoints, long instantiation, long slowest) {
+            this.modId = modId;
+            this.entrypoints = Collections.unmodifiableMap(entrypoints);
+            this.instantiation = instantiation;
+            this.slowest = slowest;
+            this.total = entrypoints.values().stream().mapToLong(Long::longValue).sum();
+        }
+
+        public String getModId() {
+            return modId;
+        }
+
+        /**
+         * @return the nanoseconds spent in the entrypoints of each key, including instantiation
+         */
+        public Map<String, Long> getEntrypoints() {
+            return entrypoints;
+        }
+
+        /**
+         * @return the nanoseconds spent instantiating the entrypoints, part of the entrypoint times
+         */
+        public long getInstantiation() {
+            return instantiation;
+        }
+
+        public long getTotal() {
+            return total;
+        }
+
+        /**
+         * @return the nanoseconds spent in the slowest single entrypoint of this mod
+         */
+        public long getSlowest() {
+            return slowest;
+        }
+
+        /**
+         * @return whether a single entrypoint of this mod took longer than the configured threshold, the same check
+         * that logs the warning when the entrypoint ran
+         */
+        public boolean isSlow() {
+            return StartupMetrics.isSlow(slowest);
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package net.xiaoyu233.fml.classloading;
+
+import com.google.gson.stream.JsonWriter;
+import net.xiaoyu233.fml.relaunch.Launch;
+import net.xiaoyu233.fml.util.Log;
+import org.spongepowered.asm.mixin.extensibility.IMixinInfo;
+import org.spongepowered.asm.mixin.transformer.ClassInfo;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Records how long each class spends in the loading stages of {@link KnotClassDelegate}.
+ *
+ * <p>Once the game reaches the main menu or the dedicated server has started, the recorded events are written to
+ * {@code .fml/profile} as a Chrome trace (open it in {@code chrome://tracing} or Perfetto) and a summary is logged.
+ * Stage times are inclusive: a class loaded while another one is being transformed is also counted in the outer one.
+ */
+public final class ClassLoadingProfiler {
+    private static final int SUMMARY_ROWS = 15;
+    private static final Queue<Event> events = new ConcurrentLinkedQueue<>();
+    private static final AtomicBoolean finished = new AtomicBoolean();
+    private static final long origin = System.nanoTime();
+    private static volatile boolean enabled;
+
+    private ClassLoadingProfiler() {
+    }
+
+    public static void setEnabled(boolean enabled) {
+        ClassLoadingProfiler.enabled = enabled && !finished.get();
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return the start timestamp to pass to {@link #end}, or 0 if profiling is disabled
+     */
+    public static long begin() {
+        return enabled ? System.nanoTime() : 0L;
+    }
+
+    public static void end(Stage stage, String className, long start) {
+        if (start == 0L || !enabled) {
+            return;
+        }
+
+        Thread thread = Thread.currentThread();
+        events.add(new Event(stage, className, thread.getId(), thread.getName(), start - origin, System.nanoTime() - start));
+    }
+
+    /**
+     * Stops recording and exports everything recorded so far, only the first call has any effect.
+     *
+     * @param milestone what the game just reached, used in the log
+     */
+    public static void finish(String milestone) {
+        if (!enabled || !finished.compareAndSet(false, true)) {
+            return;
+        }
+        enabled = false;
+
+        List<Event> recorded = new ArrayList<>(events);
+        events.clear();
+        String timestamp = new SimpleDateFormat("yyyy-MM-dd_HH.mm.ss").format(new Date());
+        Path traceFile = Path.of(Launch.minecraftHome, ".fml", "profile", "classloading-" + timestamp + ".json");
+        try {
+            writeTrace(traceFile, recorded);
+            Log.info("Class loading profile until {} written to {}", milestone, traceFile);
+        } catch (IOException e) {
+            Log.warn("Cannot write class loading profile to {}", traceFile, e);
+        }
+        Log.info(summarize(recorded));
+    }
+
+    private static void writeTrace(Path file, List<Event> recorded) throws IOException {
+        Files.createDirectories(file.getParent());
+        try (Writer fileWriter = Files.newBufferedWriter(file, StandardCharsets.UTF_8); JsonWriter writer = new JsonWriter(fileWriter)) {
+            writer.beginObject();
+            writer.name("displayTimeUnit").value("ms");
+            writer.name("traceEvents").beginArray();
+
+            Map<Long, String> threadNames = new HashMap<>();
+            for (Event event : recorded) {
+                threadNames.putIfAbsent(event.threadId, event.threadName);
+                writer.beginObject();
+                writer.name("name").value(event.className);
+                writer.name("cat").value(event.stage.displayName);
+                writer.name("ph").value("X");
+                writer.name("pid").value(1);
+                writer.name("tid").value(event.threadId);
+                writer.name("ts").value(event.start / 1000.0D);
+                writer.name("dur").value(event.duration / 1000.0D);
+                writer.endObject();
+            }
+
+            for (Map.Entry<Long, String> thread : threadNames.entrySet()) {
+                writer.beginObject();
+                writer.name("name").value("thread_name");
+                writer.name("ph").value("M");
+                writer.name("pid").value(1);
+                writer.name("tid").value(thread.getKey());
+                writer.name("args").beginObject().name("name").value(thread.getValue()).endObject();
+                writer.endObject();
+            }
+
+            writer.endArray();
+            writer.endObject();
+        }
+    }
+
+    private static String summarize(List<Event> recorded) {
+        Map<Stage, long[]> stages = new EnumMap<>(Stage.class);
+        Map<String, Long> transformTimeByClass = new HashMap<>();
+        Map<String, Long> mixinTimeByClass = new HashMap<>();
+        Map<String, Long> timeByClass = new HashMap<>();
+        for (Event event : recorded) {
+            long[] stats = stages.computeIfAbsent(event.stage, stage -> new long[3]);
+            stats[0]++;
+            stats[1] += event.duration;
+            stats[2] = Math.max(stats[2], event.duration);
+            timeByClass.merge(event.className, event.duration, Long::sum);
+            if (event.stage == Stage.FML_TRANSFORM) {
+                transformTimeByClass.merge(event.className, event.duration, Long::sum);
+            } else if (event.stage == Stage.MIXIN) {
+                mixinTimeByClass.merge(event.className, event.duration, Long::sum);
+            }
+        }
+
+        StringBuilder builder = new StringBuilder("Class loading profile (").append(recorded.size()).append(" events, inclusive times):\n");
+        builder.append(String.format("  %-20s %8s %12s %10s %10s%n", "Stage", "Count", "Total (ms)", "Avg (us)", "Max (ms)"));
+        for (Map.Entry<Stage, long[]> entry : stages.entrySet()) {
+            long[] stats = entry.getValue();
+            builder.append(String.format("  %-20s %8d %12.1f %10.1f %10.2f%n", entry.getKey().displayName, stats[0], stats[1] / 1e6D, stats[1] / 1e3D / stats[0], stats[2] / 1e6D));
+        }
+
+        builder.append("  Slowest classes:\n");
+        appendTop(builder, timeByClass);
+
+        Map<String, Long> bySource = new HashMap<>();
+        for (Map.Entry<String, Long> entry : transformTimeByClass.entrySet()) {
+            bySource.merge(codeSourceName(entry.getKey()), entry.getValue(), Long::sum);
+        }
+        builder.append("  FMLClassTransformer time by code source of the target:\n");
+        appendTop(builder, bySource);
+
+        Map<String, Long> byConfig = new HashMap<>();
+        for (Map.Entry<String, Long> entry : mixinTimeByClass.entrySet()) {
+            ClassInfo classInfo = ClassInfo.fromCache(entry.getKey());
+            if (classInfo == null) {
+                continue;
+            }
+            Set<String> configs = new HashSet<>();
+            for (IMixinInfo mixin : classInfo.getAppliedMixins()) {
+                configs.add(mixin.getConfig().getName());
+            }
+            for (String config : configs) {
+                byConfig.merge(config, entry.getValue(), Long::sum);
+            }
+        }
+        builder.append("  Mixin time by config (a target shared by several configs counts for each):\n");
+        appendTop(builder, byConfig);
+        return builder.toString();
+    }
+
+    private static void appendTop(StringBuilder builder, Map<String, Long> times) {
+        times.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder()))
+                .limit(SUMMARY_ROWS)
+                .forEach(entry -> builder.append(String.format("    %10.2f ms  %s%n", entry.getValue() / 1e6D, entry.getKey())));
+    }
+
+    private static String codeSourceName(String className) {
+        try {
+            Optional<Path> codeSource = Launch.knotLoader.findClassCodeSource(className);
+            return codeSource.map(path -> path.getFileName().toString()).orElse("<unknown>");
+        } catch (RuntimeException e) {
+            return "<unknown>";
+        }
+    }
+
+    public enum Stage {
+        RAW_READ("Raw read"),
+        FML_TRANSFORM("FMLClassTransformer"),
+        MIXIN("Mixin"),
+        DEFINE_CLASS("defineClass");
+
+        private final String displayName;
+
+        Stage(String displayName) {
+            this.displayName = displayName;
+        }
+    }
+
+    private record Event(Stage stage, String className, long threadId, String threadName, long start, long duration) {
+    }
+}
@@ -0,0 +1,181 @@
+package net.xiaoyu233.fml.classloading;
+
+import net.xiaoyu233.fml.util.LoaderUtil;
+import net.xiaoyu233.fml.util.Log;
+import net.xiaoyu233.fml.util.UrlUtil;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Maps resource names to the code source providing them, so the knot class loader does not have to probe every
+ * jar on its class path for each lookup.
+ *
+ * <p>Jars are indexed from their central directory once, when they are added. Directories are cheap to probe and
+ * may change while the game runs, so they are checked on lookup instead, still respecting the order in which the
+ * code sources were added. Any other kind of URL makes the index non-authoritative and callers have to fall back
+ * to a linear search.
+ *
+ * <p>Indexed jars are kept open so that class bytes can be inflated straight from them into exactly sized arrays, and
+ * their manifest is read from the same handle. Multi-release jars are indexed and read for the running Java version,
+ * like {@link java.net.URLClassLoader} does.
+ */
+final class CodeSourceIndex {
+    private final Map<String, Source> entries = new ConcurrentHashMap<>();
+    private final List<Source> directories = new CopyOnWriteArrayList<>();
+    private final Map<Path, Source> jars = new ConcurrentHashMap<>();
+    private volatile boolean authoritative = true;
+    private int nextOrder;
+
+    synchronized void add(URL url) {
+        if (!url.getProtocol().equals("file")) {
+            this.authoritative = false;
+            return;
+        }
+
+        Path path;
+        try {
+            path = LoaderUtil.normalizeExistingPath(UrlUtil.asPath(url));
+        } catch (RuntimeException e) {
+            this.authoritative = false;
+            return;
+        }
+
+        if (Files.isDirectory(path)) {
+            this.directories.add(new Source(path, null, null, this.nextOrder++));
+            return;
+        }
+
+        try {
+            JarFile jar = new JarFile(path.toFile(), true, ZipFile.OPEN_READ, Runtime.version());
+            Source source = new Source(path, new URL("jar:" + url + "!/"), jar, this.nextOrder++);
+            // the versioned stream names the entries of a multi-release jar after their base name
+            jar.versionedStream().forEach(entry -> this.entries.putIfAbsent(entry.getName(), source));
+            this.jars.putIfAbsent(path, source);
+        } catch (IOException e) {
+            Log.warn("Cannot index code source {}, falling back to linear resource lookup", path, e);
+            this.authoritative = false;
+        }
+    }
+
+    boolean isAuthoritative() {
+        return this.authoritative;
+    }
+
+    /**
+     * @return the URL of the first code source containing the resource, or null if none has it
+     */
+    URL findResource(String name) {
+        Located located = this.locate(name);
+        if (located == null) {
+            return null;
+        }
+
+        try {
+            if (located.source.jarUrl == null) {
+                return UrlUtil.asUrl(located.source.path.resolve(name));
+            }
+            return new URL(located.source.jarUrl + new URI(null, null, located.name, null).getRawPath());
+        } catch (MalformedURLException | URISyntaxException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Reads a resource without going through URL connections, the array is sized from the central directory.
+     *
+     * @return the resource bytes, or null if no indexed code source has the resource
+     */
+    byte[] readResource(String name) throws IOException {
+        Located located = this.locate(name);
+        if (located == null || located.name.endsWith("/")) {
+            return null;
+        }
+
+        JarFile zip = located.source.jar;
+        if (zip == null) {
+            return Files.readAllBytes(located.source.path.resolve(name));
+        }
+
+        ZipEntry entry = zip.getEntry(located.name);
+        if (entry == null) {
+            return null;
+        }
+
+        long size = entry.getSize();
+        try (InputStream inputStream = zip.getInputStream(entry)) {
+            if (size < 0 || size > Integer.MAX_VALUE - 8) {
+                return inputStream.readAllBytes();
+            }
+
+            byte[] bytes = new byte[(int) size];
+            int read = inputStream.readNBytes(bytes, 0, bytes.length);
+            if (read != bytes.length) {
+                throw new EOFException("Unexpected end of " + located.name + " in " + located.source.path);
+            }
+            return bytes;
+        }
+    }
+
+    /**
+     * @return the manifest of an indexed jar, or null if the jar is not indexed or has none
+     */
+    Manifest getManifest(Path codeSource) throws IOException {
+        Source source = this.jars.get(codeSource);
+        return source != null ? source.jar.getManifest() : null;
+    }
+
+    /**
+     * @return the code source of the first jar or directory containing the resource, or null if none has it
+     */
+    Path findCodeSource(String name) {
+        Located located = this.locate(name);
+        return located != null ? located.source.path : null;
+    }
+
+    private Located locate(String name) {
+        String entryName = name;
+        Source source = this.entries.get(name);
+        if (source == null && !name.endsWith("/")) {
+            // zip lookups also match directory entries
+            entryName = name + "/";
+            source = this.entries.get(entryName);
+        }
+
+        for (Source directory : this.directories) {
+            if (source != null && directory.order > source.order) {
+                break;
+            }
+            try {
+                if (Files.exists(directory.path.resolve(name))) {
+                    return new Located(directory, name);
+                }
+            } catch (InvalidPathException ignored) {
+            }
+        }
+
+        return source != null ? new Located(source, entryName) : null;
+    }
+
+    private record Source(Path path, URL jarUrl, JarFile jar, int order) {
+    }
+
+    private record Located(Source source, String name) {
+    }
+}
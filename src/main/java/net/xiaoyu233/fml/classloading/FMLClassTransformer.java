@@ -9,6 +9,9 @@ import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.ClassVisitor;
 import org.objectweb.asm.ClassWriter;
 import org.objectweb.asm.tree.ClassNode;
+import org.spongepowered.asm.mixin.MixinEnvironment;
+import org.spongepowered.asm.mixin.transformer.IMixinTransformer;
+import org.spongepowered.asm.transformers.MixinClassWriter;
 
 import java.util.Optional;
 import java.util.function.Consumer;
@@ -18,10 +21,9 @@ import static org.objectweb.asm.Opcodes.ASM9;
 public class FMLClassTransformer {
 
     public static byte[] transform(String name, byte[] bytes, AsmTransformer asmTransformer) {
-        boolean isMinecraftClass = name.startsWith("net.minecraft.") || name.startsWith("com.mojang.blaze3d.") || name.indexOf('.') < 0;
         Optional<Consumer<ClassNode>> classModifier = asmTransformer.getClassModifier(name);
         boolean hasTransformation = classModifier.isPresent();
-        boolean applyAccessWidener = isMinecraftClass && FishModLoader.getAccessWidener().getTargets().contains(name) ;
+        boolean applyAccessWidener = shouldApplyAccessWidener(name);
 
         if (!applyAccessWidener && !hasTransformation) {
             return bytes;
@@ -58,4 +60,64 @@ public class FMLClassTransformer {
         }
         return byteArray;
     }
+
+    /**
+     * Passes one ClassNode through the access widener, ClassTinkerers and Mixin, and serializes it once at the end,
+     * instead of writing the class after {@link #transform} only for Mixin to parse it again.
+     *
+     * @return the transformed bytes, or null if neither the access widener nor ClassTinkerers target the class,
+     * in which case the bytes should go to Mixin directly
+     */
+    public static byte[] transformWithMixins(String name, byte[] bytes, AsmTransformer asmTransformer, IMixinTransformer mixinTransformer) {
+        Optional<Consumer<ClassNode>> classModifier = asmTransformer.getClassModifier(name);
+        boolean hasTransformation = classModifier.isPresent();
+        boolean applyAccessWidener = shouldApplyAccessWidener(name);
+
+        if (!applyAccessWidener && !hasTransformation) {
+            return null;
+        }
+
+        MixinEnvironment environment = MixinEnvironment.getCurrentEnvironment();
+        if (!mixinTransformer.couldTransformClass(environment, name)) {
+            // Mixin will not touch the class, the streaming path can copy unchanged methods straight to the writer
+            long start = ClassLoadingProfiler.begin();
+            byte[] byteArray = transform(name, bytes, asmTransformer);
+            ClassLoadingProfiler.end(ClassLoadingProfiler.Stage.FML_TRANSFORM, name, start);
+            return byteArray;
+        }
+
+        long start = ClassLoadingProfiler.begin();
+        ClassReader classReader = new ClassReader(bytes);
+        ClassNode classNode = new ClassNode();
+        ClassVisitor visitor = classNode;
+
+        if (applyAccessWidener) {
+            visitor = AccessWidenerClassVisitor.createClassVisitor(ASM9, visitor, FishModLoader.getAccessWidener());
+            FishModLoader.LOGGER.info("[AW] Widened class: " + name);
+        }
+        // Mixin works on expanded frames, read them that way right away like TreeTransformer#readClass does
+        classReader.accept(visitor, ClassReader.EXPAND_FRAMES);
+        if (applyAccessWidener) {
+            ClassDumper.dumpClassStaged(classNode, name, DumpStage.ACCESS_WIDENER);
+        }
+        if (hasTransformation) {
+            classModifier.get().accept(classNode);
+            ClassDumper.dumpClassStaged(classNode, name, DumpStage.CLASS_TINKER);
+        }
+        ClassLoadingProfiler.end(ClassLoadingProfiler.Stage.FML_TRANSFORM, name, start);
+
+        start = ClassLoadingProfiler.begin();
+        boolean mixed = mixinTransformer.transformClass(environment, name, classNode);
+        // Only classes Mixin touched need their frames recomputed, the rest keep the frames they were read with
+        ClassWriter classWriter = mixed ? new MixinClassWriter(classReader, ClassWriter.COMPUTE_MAXS | ClassWriter.COMPUTE_FRAMES) : new ClassWriter(classReader, 0);
+        classNode.accept(classWriter);
+        byte[] byteArray = classWriter.toByteArray();
+        ClassLoadingProfiler.end(ClassLoadingProfiler.Stage.MIXIN, name, start);
+        return byteArray;
+    }
+
+    private static boolean shouldApplyAccessWidener(String name) {
+        boolean isMinecraftClass = name.startsWith("net.minecraft.") || name.startsWith("com.mojang.blaze3d.") || name.indexOf('.') < 0;
+        return isMinecraftClass && FishModLoader.getAccessWidener().getTargets().contains(name);
+    }
 }
@@ -17,17 +17,24 @@
 package net.xiaoyu233.fml.classloading;
 
 import com.chocohead.mm.AsmTransformer;
-import com.google.common.collect.Sets;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
 import net.fabricmc.loader.impl.util.SystemProperties;
+import net.xiaoyu233.fml.FishModLoader;
 import net.xiaoyu233.fml.classloading.dump.DumpClassExtension;
 import net.xiaoyu233.fml.mixin.service.MixinService;
 import net.xiaoyu233.fml.util.FileSystemUtil;
+import net.xiaoyu233.fml.util.LoaderExecutor;
 import net.xiaoyu233.fml.util.LoaderUtil;
 import net.xiaoyu233.fml.util.Log;
 import net.xiaoyu233.fml.util.ManifestUtil;
+import net.xiaoyu233.fml.util.PrefixMatcher;
 import net.xiaoyu233.fml.util.UrlConversionException;
 import net.xiaoyu233.fml.util.UrlUtil;
+import org.spongepowered.asm.mixin.MixinEnvironment;
+import org.spongepowered.asm.mixin.transformer.Config;
 import org.spongepowered.asm.mixin.transformer.IMixinTransformer;
+import org.spongepowered.asm.mixin.transformer.MixinConfig;
 import org.spongepowered.asm.mixin.transformer.ext.Extensions;
 
 import java.io.ByteArrayOutputStream;
@@ -38,18 +45,25 @@ import java.net.JarURLConnection;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.FileSystemNotFoundException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.security.CodeSource;
 import java.security.cert.Certificate;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.jar.Manifest;
 
 public final class KnotClassDelegate<T extends ClassLoader & KnotClassDelegate.ClassLoaderAccess> implements KnotClassLoaderInterface {
@@ -61,15 +75,18 @@ public final class KnotClassDelegate<T extends ClassLoader & KnotClassDelegate.C
 	private final Map<Path, Metadata> metadataCache = new ConcurrentHashMap<>();
 	private final T classLoader;
 	private final ClassLoader parentClassLoader;
-	private final Set<String> blockedClassPrefix = Sets.newHashSet();
-	private final Set<String> whitelistClassPrefix = Sets.newHashSet();
+	private final PrefixMatcher blockedClassPrefix = new PrefixMatcher();
+	private final PrefixMatcher whitelistClassPrefix = new PrefixMatcher();
 	private final Map<Path, String[]> allowedPrefixes = new ConcurrentHashMap<>();
 	private final Set<String> parentSourcedClasses = Collections.newSetFromMap(new ConcurrentHashMap<>());
+	private final Map<String, FutureTask<byte[]>> prewarmedClasses = new ConcurrentHashMap<>();
+	private volatile boolean prewarming;
 	private IMixinTransformer mixinTransformer;
 	private boolean transformInitialized = false;
 	private volatile Set<Path> codeSources = Collections.emptySet();
 	private volatile Set<Path> validParentCodeSources = Collections.emptySet();
 	private AsmTransformer asmTransformer;
+	private volatile TransformedClassCache transformCache;
 	KnotClassDelegate(T classLoader, ClassLoader parentClassLoader) {
 		this.classLoader = classLoader;
 		this.parentClassLoader = parentClassLoader;
@@ -134,6 +151,145 @@ public final class KnotClassDelegate<T extends ClassLoader & KnotClassDelegate.C
 		transformInitialized = true;
 	}
 
+	@Override
+	public void initializeTransformCache(Path cacheRoot) {
+		if (!transformInitialized) throw new IllegalStateException("Transformers must be initialized before the transform cache!");
+
+		List<String> mixinConfigs = new ArrayList<>();
+		Set<Path> fingerprintSources = new HashSet<>(codeSources);
+		fingerprintSources.add(UrlUtil.LOADER_CODE_SOURCE);
+
+		try {
+			for (Config config : FishModLoader.getMixinConfigs()) {
+				mixinConfigs.add(describeMixinConfig(config));
+			}
+
+			String fingerprint = TransformedClassCache.fingerprint(fingerprintSources, mixinConfigs, FishModLoader.getAccessWidener().getTargets(), asmTransformer.getTransformationTargets());
+			transformCache = TransformedClassCache.open(cacheRoot, fingerprint, getMixinTransformer().getExtensions().getSyntheticClassRegistry());
+		} catch (IOException e) {
+			Log.warn("Cannot open transformed class cache, classes will be transformed on every launch", e);
+		}
+	}
+
+	/**
+	 * @return the config name with a hash of the config file and its mixin classes, directory code sources do not
+	 * change their modification time when a file inside them is edited
+	 */
+	private String describeMixinConfig(Config config) throws IOException {
+		Hasher hasher = Hashing.sha256().newHasher();
+
+		try (InputStream in = classLoader.getResourceAsStream(config.getName())) {
+			if (in != null) hasher.putBytes(in.readAllBytes());
+		}
+
+		if (config.getConfig() instanceof MixinConfig mixinConfig) {
+			for (String mixin : mixinConfig.getClasses()) {
+				byte[] bytes = readRawClassByteArray(mixin, false);
+				hasher.putString(mixin, StandardCharsets.UTF_8).putInt(bytes != null ? bytes.length : -1);
+				if (bytes != null) hasher.putBytes(bytes);
+			}
+		}
+
+		return config.getName() + "@" + hasher.hash();
+	}
+
+	@Override
+	public void prewarmClasses(Collection<String> classNames) {
+		if (!transformInitialized) throw new IllegalStateException("Transformers must be initialized before prewarming classes!");
+
+		long start = System.nanoTime();
+		List<FutureTask<byte[]>> tasks = new ArrayList<>();
+		prewarming = true;
+
+		for (String name : classNames) {
+			if (classLoader.findLoadedClassFwd(name) != null || prewarmedClasses.containsKey(name)) continue;
+
+			FutureTask<byte[]> task = new FutureTask<>(() -> prewarmClass(name));
+			prewarmedClasses.put(name, task);
+			LoaderExecutor.get().execute(task);
+			tasks.add(task);
+		}
+
+		// Wait for the workers before the game starts loading classes, a thread holding a class loading lock
+		// must never wait for the mixin transformer while a worker owns it
+		int timeout = Integer.getInteger("fml.prewarmTimeout", 60);
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(timeout > 0 ? timeout : Integer.MAX_VALUE);
+
+		try {
+			for (FutureTask<byte[]> task : tasks) {
+				try {
+					task.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+				} catch (ExecutionException e) {
+					// reported when the class is loaded
+				}
+			}
+		} catch (TimeoutException e) {
+			Log.warn("Prewarming classes took longer than {} seconds (-Dfml.prewarmTimeout), the remaining classes are transformed when they are loaded", timeout);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			// tasks no worker started yet do nothing from now on, their classes are transformed on load
+			prewarming = false;
+		}
+
+		Log.info("Prewarmed {} classes in {} ms", tasks.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+	}
+
+	/**
+	 * @return the transformed bytes, or null once prewarming ended before this class was started
+	 */
+	private byte[] prewarmClass(String name) {
+		if (!prewarming) return null;
+
+		Thread thread = Thread.currentThread();
+		ClassLoader previous = thread.getContextClassLoader();
+		thread.setContextClassLoader(classLoader);
+
+		try {
+			return getPostMixinClassByteArray(name, false);
+		} finally {
+			thread.setContextClassLoader(previous);
+		}
+	}
+
+	/**
+	 * Drops the prewarmed classes that were not loaded during startup and no mixin targets, such as access widener
+	 * only targets that are client-only on a dedicated server, so their bytes do not stay in memory for the life of the
+	 * game. Mixin marked the prewarmed mixin targets as applied, transforming them again would apply the mixins twice,
+	 * so their bytes are kept until the class is defined.
+	 */
+	@Override
+	public void clearPrewarmedClasses() {
+		if (prewarmedClasses.isEmpty()) return;
+
+		MixinEnvironment environment = MixinEnvironment.getCurrentEnvironment();
+		int count = prewarmedClasses.size();
+		prewarmedClasses.entrySet().removeIf(entry -> !getMixinTransformer().couldTransformClass(environment, entry.getKey()));
+		Log.info("Dropped {} prewarmed classes not loaded during startup, keeping {} mixin targets until they are loaded", count - prewarmedClasses.size(), prewarmedClasses.size());
+	}
+
+	/**
+	 * Takes the prewarmed bytes of a class, running the prewarm task inline if no worker has picked it up yet.
+	 *
+	 * @return the transformed bytes, or null if the class has not been prewarmed
+	 */
+	private byte[] takePrewarmedClass(String name) {
+		FutureTask<byte[]> task = prewarmedClasses.remove(name);
+		if (task == null) return null;
+
+		task.run();
+
+		try {
+			return task.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("Interrupted while waiting for prewarmed class " + name, e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException runtimeException) throw runtimeException;
+			throw new RuntimeException("Failed to prewarm class " + name, e.getCause());
+		}
+	}
+
 	private IMixinTransformer getMixinTransformer() {
 		assert mixinTransformer != null;
 		return mixinTransformer;
@@ -308,7 +464,7 @@ public final class KnotClassDelegate<T extends ClassLoader & KnotClassDelegate.C
 	}
 
 	Class<?> tryLoadClass(String name, boolean allowFromParent) throws ClassNotFoundException {
-		if ((name.startsWith("java.") || ((blockedClassPrefix.stream().anyMatch(name::startsWith)) && (whitelistClassPrefix.stream().noneMatch(name::startsWith))))) {
+		if ((name.startsWith("java.") || (blockedClassPrefix.matches(name) && !whitelistClassPrefix.matches(name)))) {
 			return null;
 		}
 
@@ -351,7 +507,8 @@ public final class KnotClassDelegate<T extends ClassLoader & KnotClassDelegate.C
 			}
 		}
 
-		byte[] input = getPostMixinClassByteArray(name, allowFromParent);
+		byte[] input = prewarmedClasses.isEmpty() ? null : takePrewarmedClass(name);
+		if (input == null) input = getPostMixinClassByteArray(name, allowFromParent);
 		if (input == null) return null;
 
 		// The class we're currently loading could have been loaded already during Mixin initialization triggered by `getPostMixinClassByteArray`.
@@ -383,11 +540,17 @@ public final class KnotClassDelegate<T extends ClassLoader & KnotClassDelegate.C
 			}
 		}
 
-		return classLoader.defineClassFwd(name, input, 0, input.length, metadata.codeSource);
+		long start = ClassLoadingProfiler.begin();
+		Class<?> definedClass = classLoader.defineClassFwd(name, input, 0, input.length, metadata.codeSource);
+		ClassLoadingProfiler.end(ClassLoadingProfiler.Stage.DEFINE_CLASS, name, start);
+		return definedClass;
 	}
 
 	private Metadata getMetadata(String name) {
 		String fileName = LoaderUtil.getClassFileName(name);
+		Path codeSource = classLoader.findCodeSourceFwd(fileName);
+		if (codeSource != null) return getMetadata(codeSource);
+
 		URL url = classLoader.getResource(fileName);
 		if (url == null || !hasRegularCodeSource(url)) return Metadata.EMPTY;
 
@@ -403,7 +566,7 @@ public final class KnotClassDelegate<T extends ClassLoader & KnotClassDelegate.C
 			try {
 				if (Files.isDirectory(path)) {
 					manifest = ManifestUtil.readManifest(path);
-				} else {
+				} else if ((manifest = classLoader.getManifestFwd(path)) == null) { // indexed jars are already open
 					URLConnection connection = new URL("jar:" + path.toUri() + "!/").openConnection();
 
 					if (connection instanceof JarURLConnection) {
@@ -440,12 +603,67 @@ public final class KnotClassDelegate<T extends ClassLoader & KnotClassDelegate.C
 	}
 
 	private byte[] getPostMixinClassByteArray(String name, boolean allowFromParent) {
-		byte[] transformedClassArray = getPreMixinClassByteArray(name, allowFromParent);
+		TransformedClassCache transformCache = this.transformCache;
 
 		if (!transformInitialized || !canTransformClass(name)) {
-			return transformedClassArray;
+			return getPreMixinClassByteArray(name, allowFromParent);
 		}
 
+		byte[] input;
+
+		try {
+			input = getRawClassByteArray(name, allowFromParent);
+		} catch (IOException e) {
+			throw new RuntimeException("Failed to load class file for '" + name + "'!", e);
+		}
+
+		if (input == null) { // possibly a mixin synthetic class, these are never cached
+			return applyMixins(name, null);
+		}
+
+		// a cache hit skips Mixin, which has to see every class it could transform to keep ClassInfo and the config
+		// plugins up to date, so only classes no mixin targets are cached
+		if (transformCache == null || getMixinTransformer().couldTransformClass(MixinEnvironment.getCurrentEnvironment(), name)) {
+			return transformAndApplyMixins(name, input);
+		}
+
+		String key = transformCache.computeKey(name, input);
+		byte[] cached = transformCache.get(key);
+
+		if (cached != null) {
+			return cached;
+		}
+
+		byte[] output = transformAndApplyMixins(name, input);
+
+		if (output != input) {
+			transformCache.put(key, output);
+		}
+
+		return output;
+	}
+
+	/**
+	 * Runs the access widener, ClassTinkerers and Mixin on a single tree when the first two target the class,
+	 * otherwise hands the raw bytes straight to Mixin.
+	 */
+	private byte[] transformAndApplyMixins(String name, byte[] input) {
+		byte[] output;
+
+		try {
+			output = FMLClassTransformer.transformWithMixins(name.replace('/', '.'), input, asmTransformer, getMixinTransformer());
+		} catch (Throwable t) {
+			String msg = String.format("Transformation of %s failed", name);
+			if (LOG_TRANSFORM_ERRORS) Log.warn( msg, t);
+
+			throw new RuntimeException(msg, t);
+		}
+
+		return output != null ? output : applyMixins(name, input);
+	}
+
+	private byte[] applyMixins(String name, byte[] transformedClassArray) {
+		long start = ClassLoadingProfiler.begin();
 		try {
 			return getMixinTransformer().transformClassBytes(name, name, transformedClassArray);
 		} catch (Throwable t) {
@@ -453,6 +671,17 @@ public final class KnotClassDelegate<T extends ClassLoader & KnotClassDelegate.C
 			if (LOG_TRANSFORM_ERRORS) Log.warn( msg, t);
 
 			throw new RuntimeException(msg, t);
+		} finally {
+			ClassLoadingProfiler.end(ClassLoadingProfiler.Stage.MIXIN, name, start);
+		}
+	}
+
+	private byte[] transformClass(String name, byte[] input) {
+		long start = ClassLoadingProfiler.begin();
+		try {
+			return FMLClassTransformer.transform(name, input, asmTransformer);
+		} finally {
+			ClassLoadingProfiler.end(ClassLoadingProfiler.Stage.FML_TRANSFORM, name, start);
 		}
 	}
 
@@ -464,6 +693,9 @@ public final class KnotClassDelegate<T extends ClassLoader & KnotClassDelegate.C
 	@Override
 	public Optional<Path> findClassCodeSource(String className) {
 		String classFileName = LoaderUtil.getClassFileName(className);
+		Path codeSource = this.classLoader.findCodeSourceFwd(classFileName);
+		if (codeSource != null) return Optional.of(codeSource);
+
 		URL url = this.classLoader.getResource(classFileName);
 		if (url != null && hasRegularCodeSource(url)) {
 			return Optional.of(getCodeSource(url, classFileName));
@@ -495,7 +727,7 @@ public final class KnotClassDelegate<T extends ClassLoader & KnotClassDelegate.C
         }
 
 		if (input != null) {
-			return FMLClassTransformer.transform(name, input, asmTransformer);
+			return transformClass(name, input);
 		}
 
         return null;
@@ -507,7 +739,19 @@ public final class KnotClassDelegate<T extends ClassLoader & KnotClassDelegate.C
 	}
 
 	private byte[] getRawClassByteArray(String name, boolean allowFromParent) throws IOException {
+		long start = ClassLoadingProfiler.begin();
+		try {
+			return readRawClassByteArray(name, allowFromParent);
+		} finally {
+			ClassLoadingProfiler.end(ClassLoadingProfiler.Stage.RAW_READ, name, start);
+		}
+	}
+
+	private byte[] readRawClassByteArray(String name, boolean allowFromParent) throws IOException {
 		name = LoaderUtil.getClassFileName(name);
+		byte[] indexed = classLoader.readResourceFwd(name);
+		if (indexed != null) return indexed;
+
 		URL url = classLoader.findResourceFwd(name);
 
 		if (url == null) {
@@ -548,6 +792,9 @@ public final class KnotClassDelegate<T extends ClassLoader & KnotClassDelegate.C
     public interface ClassLoaderAccess {
 		void addUrlFwd(URL url);
 		URL findResourceFwd(String name);
+		Path findCodeSourceFwd(String name);
+		byte[] readResourceFwd(String name) throws IOException;
+		Manifest getManifestFwd(Path codeSource) throws IOException;
 		Package getPackageFwd(String name);
 		Package definePackageFwd(String name, String specTitle, String specVersion, String specVendor, String implTitle, String implVersion, String implVendor, URL sealBase) throws IllegalArgumentException;
 
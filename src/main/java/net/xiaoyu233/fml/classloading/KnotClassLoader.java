@@ -20,10 +20,12 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.nio.file.Path;
 import java.security.CodeSource;
 import java.security.SecureClassLoader;
 import java.util.Enumeration;
 import java.util.Objects;
+import java.util.jar.Manifest;
 
 // class name referenced by string constant in net.fabricmc.loader.impl.util.LoaderUtil.verifyNotInTargetCl
 final class KnotClassLoader extends SecureClassLoader implements KnotClassDelegate.ClassLoaderAccess {
@@ -119,6 +121,21 @@ final class KnotClassLoader extends SecureClassLoader implements KnotClassDelega
 		return urlLoader.findResource(name);
 	}
 
+	@Override
+	public Path findCodeSourceFwd(String name) {
+		return urlLoader.findCodeSource(name);
+	}
+
+	@Override
+	public byte[] readResourceFwd(String name) throws IOException {
+		return urlLoader.readResource(name);
+	}
+
+	@Override
+	public Manifest getManifestFwd(Path codeSource) throws IOException {
+		return urlLoader.getManifest(codeSource);
+	}
+
 	@Override
 	public Package getPackageFwd(String name) {
 		return super.getPackage(name);
@@ -155,6 +172,8 @@ final class KnotClassLoader extends SecureClassLoader implements KnotClassDelega
 			registerAsParallelCapable();
 		}
 
+		private final CodeSourceIndex index = new CodeSourceIndex();
+
 		private DynamicURLClassLoader(URL[] urls) {
 			super(urls, new DummyClassLoader());
 		}
@@ -162,6 +181,28 @@ final class KnotClassLoader extends SecureClassLoader implements KnotClassDelega
 		@Override
 		public void addURL(URL url) {
 			super.addURL(url);
+			index.add(url);
+		}
+
+		@Override
+		public URL findResource(String name) {
+			if (index.isAuthoritative()) {
+				return index.findResource(name);
+			}
+
+			return super.findResource(name);
+		}
+
+		Path findCodeSource(String name) {
+			return index.isAuthoritative() ? index.findCodeSource(name) : null;
+		}
+
+		byte[] readResource(String name) throws IOException {
+			return index.isAuthoritative() ? index.readResource(name) : null;
+		}
+
+		Manifest getManifest(Path codeSource) throws IOException {
+			return index.getManifest(codeSource);
 		}
 	}
 }
@@ -33,6 +33,9 @@ public interface KnotClassLoaderInterface {
 	}
 
 	void initializeTransformers(AsmTransformer asmTransformer);
+	void initializeTransformCache(Path cacheRoot);
+	void prewarmClasses(Collection<String> classNames);
+	void clearPrewarmedClasses();
 	Set<Path> getCodeSource();
 	ClassLoader getClassLoader();
 
@@ -17,6 +17,7 @@ import java.security.CodeSource;
 import java.security.cert.Certificate;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.jar.Attributes;
 import java.util.jar.Attributes.Name;
 import java.util.jar.JarEntry;
@@ -30,6 +31,9 @@ public class LaunchClassLoader extends URLClassLoader {
    private final List<URL> sources;
    private final ClassLoader parent = this.getClass().getClassLoader();
    private static final boolean DEBUG = Boolean.parseBoolean(System.getProperty("legacy.debugClassLoading", "false")) || Configs.Debug.DEBUG.get();
+   // This loader bootstraps the dedicated server before the FML config is read, so its cache policy comes from system properties
+   private static final boolean RETAIN_CLASS_BYTES = Boolean.parseBoolean(System.getProperty("legacy.retainClassBytes", "false"));
+   private static final int NEGATIVE_CACHE_SIZE = Integer.getInteger("legacy.negativeCacheSize", 4096);
 
    static {
       DEBUG_FINER = DEBUG && (Boolean.parseBoolean(System.getProperty("legacy.debugClassLoadingFiner", "false")) || Configs.Debug.PRINT_CLASSLOAD_INFO.get());
@@ -38,14 +42,15 @@ public class LaunchClassLoader extends URLClassLoader {
    }
 
    private final Map<String, Class<?>> cachedClasses = new ConcurrentHashMap<>();
-   private final Set<String> classLoaderExceptions = new HashSet<>();
-   private final Set<String> invalidClasses = new HashSet<>(1000);
+   private final PrefixMatcher classLoaderExceptions = new PrefixMatcher();
+   private final Set<String> invalidClasses = newLruSet(NEGATIVE_CACHE_SIZE);
    private final ThreadLocal<byte[]> loadBuffer = new ThreadLocal<>();
-   private final Set<String> negativeResourceCache = Collections.newSetFromMap(new ConcurrentHashMap<>());
+   private final Set<String> negativeResourceCache = newLruSet(NEGATIVE_CACHE_SIZE);
    private IClassNameTransformer renameTransformer;
    private final Map<String, byte[]> resourceCache = new ConcurrentHashMap<>(1000);
+   private final AtomicLong resourceCacheBytes = new AtomicLong();
    private static final String[] RESERVED_NAMES = new String[]{"CON", "PRN", "AUX", "NUL", "COM1", "COM2", "COM3", "COM4", "COM5", "COM6", "COM7", "COM8", "COM9", "LPT1", "LPT2", "LPT3", "LPT4", "LPT5", "LPT6", "LPT7", "LPT8", "LPT9"};
-   private final Set<String> transformerExceptions = new HashSet<>();
+   private final PrefixMatcher transformerExceptions = new PrefixMatcher();
    private static final boolean DEBUG_FINER;
    private static final boolean DEBUG_SAVE;
    private static File tempFolder;
@@ -96,26 +101,22 @@ public class LaunchClassLoader extends URLClassLoader {
          throw new ClassNotFoundException(name);
       }
 
-      for (final String exception : classLoaderExceptions) {
-         if (name.startsWith(exception)) {
-            return parent.loadClass(name);
-         }
+      if (classLoaderExceptions.matches(name)) {
+         return parent.loadClass(name);
       }
 
       if (cachedClasses.containsKey(name)) {
          return cachedClasses.get(name);
       }
 
-      for (final String exception : transformerExceptions) {
-         if (name.startsWith(exception)) {
-            try {
-               final Class<?> clazz = super.findClass(name);
-               cachedClasses.put(name, clazz);
-               return clazz;
-            } catch (ClassNotFoundException e) {
-               invalidClasses.add(name);
-               throw e;
-            }
+      if (transformerExceptions.matches(name)) {
+         try {
+            final Class<?> clazz = super.findClass(name);
+            cachedClasses.put(name, clazz);
+            return clazz;
+         } catch (ClassNotFoundException e) {
+            invalidClasses.add(name);
+            throw e;
          }
       }
 
@@ -144,7 +145,6 @@ public class LaunchClassLoader extends URLClassLoader {
                   final JarEntry entry = jarFile.getJarEntry(fileName);
 
                   Package pkg = getPackage(packageName);
-                  getClassBytes(untransformedName);
                   signers = entry.getCodeSigners();
                   if (pkg == null) {
                      pkg = definePackage(packageName, manifest, jarURLConnection.getJarFileURL());
@@ -174,6 +174,10 @@ public class LaunchClassLoader extends URLClassLoader {
          final CodeSource codeSource = urlConnection == null ? null : new CodeSource(urlConnection.getURL(), signers);
          final Class<?> clazz = defineClass(transformedName, transformedClass, 0, transformedClass.length, getMetadata(transformedName).codeSource);
          cachedClasses.put(transformedName, clazz);
+         if (!RETAIN_CLASS_BYTES) {
+            // the class is defined now, its raw bytes are only needed again if something asks for them explicitly
+            this.uncacheResource(untransformedName);
+         }
          return clazz;
       } catch (Throwable e) {
          invalidClasses.add(name);
@@ -377,7 +381,7 @@ public class LaunchClassLoader extends URLClassLoader {
                if (name.toUpperCase(Locale.ENGLISH).startsWith(reservedName)) {
                   data = this.getClassBytes("_" + name);
                   if (data != null) {
-                     this.resourceCache.put(name, data);
+                     this.cacheResource(name, data);
                      return data;
                   }
                }
@@ -404,7 +408,7 @@ public class LaunchClassLoader extends URLClassLoader {
             }
 
             data = this.readFully(classStream);
-            this.resourceCache.put(name, data);
+            this.cacheResource(name, data);
          } finally {
             closeSilently(classStream);
          }
@@ -423,10 +427,46 @@ public class LaunchClassLoader extends URLClassLoader {
 
    }
 
+   private void cacheResource(String name, byte[] data) {
+      byte[] previous = this.resourceCache.put(name, data);
+      this.resourceCacheBytes.addAndGet(data.length - (previous == null ? 0 : previous.length));
+   }
+
+   private void uncacheResource(String name) {
+      byte[] previous = this.resourceCache.remove(name);
+      if (previous != null) {
+         this.resourceCacheBytes.addAndGet(-previous.length);
+      }
+   }
+
+   /**
+    * @return the number of raw class bytes currently held by the resource cache
+    */
+   public long getResourceCacheBytes() {
+      return this.resourceCacheBytes.get();
+   }
+
+   public int getResourceCacheCount() {
+      return this.resourceCache.size();
+   }
+
+   public int getNegativeCacheCount() {
+      return this.negativeResourceCache.size();
+   }
+
    public void clearNegativeEntries(Set<String> entriesToClear) {
       this.negativeResourceCache.removeAll(entriesToClear);
    }
 
+   private static Set<String> newLruSet(int maxSize) {
+      return Collections.synchronizedSet(Collections.newSetFromMap(new LinkedHashMap<>(16, 0.75F, true) {
+         @Override
+         protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+            return this.size() > maxSize;
+         }
+      }));
+   }
+
    public byte[] runTransformers(String name, String transformedName, byte[] basicClass) {
       Iterator<IClassTransformer> var4;
       IClassTransformer transformer;
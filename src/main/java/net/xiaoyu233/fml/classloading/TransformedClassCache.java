@@ -0,0 +1,191 @@
+package net.xiaoyu233.fml.classloading;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import net.xiaoyu233.fml.util.Constants;
+import net.xiaoyu233.fml.util.Log;
+import org.objectweb.asm.ClassReader;
+import org.spongepowered.asm.service.ISyntheticClassRegistry;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+
+/**
+ * Content-addressed on-disk cache of post-transformation class bytes.
+ *
+ * <p>Entries live in a directory named after the environment fingerprint (loader version, code sources,
+ * mixin configs with their content, access widener and ClassTinkerer targets), and are keyed by the class name and
+ * its raw bytes. Classes Mixin could transform are never cached: Mixin has to process them on every launch to keep
+ * ClassInfo, the config plugins and its synthetic classes consistent, and replaying that from a cached result is not
+ * supported. What remains cached are the classes only changed by the access widener, ClassTinkerers or
+ * FMLClassTransformer, which is why the cache is off by default.
+ * Directories of other fingerprints are deleted when a cache is opened, so only the current environment is kept.
+ */
+public final class TransformedClassCache {
+    private static final String ENTRY_SUFFIX = ".class";
+    private final Path cacheDir;
+    private final Set<String> entries;
+    private final ISyntheticClassRegistry syntheticClassRegistry;
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "FML Transform Cache Writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private TransformedClassCache(Path cacheDir, Set<String> entries, ISyntheticClassRegistry syntheticClassRegistry) {
+        this.cacheDir = cacheDir;
+        this.entries = entries;
+        this.syntheticClassRegistry = syntheticClassRegistry;
+    }
+
+    public static TransformedClassCache open(Path cacheRoot, String fingerprint, ISyntheticClassRegistry syntheticClassRegistry) throws IOException {
+        Path cacheDir = cacheRoot.resolve(fingerprint);
+        Files.createDirectories(cacheDir);
+
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(cacheRoot)) {
+            for (Path other : stream) {
+                if (!other.equals(cacheDir)) {
+                    deleteRecursively(other);
+                }
+            }
+        }
+
+        Set<String> entries = ConcurrentHashMap.newKeySet();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(cacheDir, "*" + ENTRY_SUFFIX)) {
+            for (Path entry : stream) {
+                String fileName = entry.getFileName().toString();
+                entries.add(fileName.substring(0, fileName.length() - ENTRY_SUFFIX.length()));
+            }
+        }
+
+        Log.info("Opened transformed class cache {} with {} entries", fingerprint, entries.size());
+        return new TransformedClassCache(cacheDir, entries, syntheticClassRegistry);
+    }
+
+    /**
+     * Computes the environment fingerprint. Code sources are identified by path, size and modification time,
+     * so replacing or updating any mod or the game jar invalidates the whole cache. Mixin configs are expected to be
+     * described with a hash of their content, which also catches edits inside directory code sources.
+     */
+    public static String fingerprint(Collection<Path> codeSources, Collection<String> mixinConfigs, Collection<String> accessWidenerTargets, Collection<String> classTinkererTargets) throws IOException {
+        Hasher hasher = Hashing.sha256().newHasher();
+        hasher.putString(Constants.VERSION, StandardCharsets.UTF_8);
+
+        Set<Path> sortedSources = new TreeSet<>(Comparator.comparing(Path::toString));
+        sortedSources.addAll(codeSources);
+        for (Path codeSource : sortedSources) {
+            BasicFileAttributes attributes = Files.readAttributes(codeSource, BasicFileAttributes.class);
+            hasher.putString(codeSource.toString(), StandardCharsets.UTF_8)
+                    .putLong(attributes.size())
+                    .putLong(attributes.lastModifiedTime().toMillis());
+        }
+
+        putSorted(hasher, mixinConfigs);
+        putSorted(hasher, accessWidenerTargets);
+        putSorted(hasher, classTinkererTargets);
+        return hasher.hash().toString().substring(0, 32);
+    }
+
+    private static void putSorted(Hasher hasher, Collection<String> values) {
+        hasher.putInt(values.size());
+        for (String value : new TreeSet<>(values)) {
+            hasher.putString(value, StandardCharsets.UTF_8).putByte((byte) 0);
+        }
+    }
+
+    public String computeKey(String name, byte[] rawBytes) {
+        return Hashing.sha256().newHasher()
+                .putString(name, StandardCharsets.UTF_8)
+                .putBytes(rawBytes)
+                .hash()
+                .toString();
+    }
+
+    public byte[] get(String key) {
+        if (!this.entries.contains(key)) {
+            return null;
+        }
+
+        try {
+            return Files.readAllBytes(this.cacheDir.resolve(key + ENTRY_SUFFIX));
+        } catch (IOException e) {
+            Log.warn("Cannot read transformed class cache entry {}", key, e);
+            this.entries.remove(key);
+            return null;
+        }
+    }
+
+    /**
+     * Stores the transformed bytes for the given key, unless they reference mixin synthetic classes.
+     * Those are only generated while mixins are really applied, so serving their owner from the cache would break them.
+     */
+    public void put(String key, byte[] transformedBytes) {
+        if (this.referencesSyntheticClass(transformedBytes) || !this.entries.add(key)) {
+            return;
+        }
+
+        this.writer.execute(() -> {
+            Path target = this.cacheDir.resolve(key + ENTRY_SUFFIX);
+            Path temp = this.cacheDir.resolve(key + ".tmp");
+            try {
+                Files.write(temp, transformedBytes);
+                try {
+                    Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } catch (IOException e) {
+                Log.warn("Cannot write transformed class cache entry {}", key, e);
+                this.entries.remove(key);
+            }
+        });
+    }
+
+    private boolean referencesSyntheticClass(byte[] classBytes) {
+        if (this.syntheticClassRegistry == null) {
+            return false;
+        }
+
+        ClassReader reader = new ClassReader(classBytes);
+        char[] buffer = new char[reader.getMaxStringLength()];
+        for (int i = 1; i < reader.getItemCount(); i++) {
+            int offset = reader.getItem(i);
+            // CONSTANT_Class entries, the second slot of long/double constants has no offset
+            if (offset > 0 && reader.readByte(offset - 1) == 7) {
+                String className = reader.readUTF8(offset, buffer);
+                if (this.syntheticClassRegistry.findSyntheticClass(className) != null) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static void deleteRecursively(Path path) throws IOException {
+        if (!Files.isDirectory(path)) {
+            Files.deleteIfExists(path);
+            return;
+        }
+
+        try (Stream<Path> walk = Files.walk(path)) {
+            for (Path child : walk.sorted(Collections.reverseOrder()).toList()) {
+                Files.deleteIfExists(child);
+            }
+        }
+    }
+}
@@ -13,15 +13,14 @@ import java.nio.file.StandardOpenOption;
 public class ClassDumper {
 
     public static void dumpClassStaged(ClassNode classNode, String className, DumpStage stage){
+        if (!shouldDump(className, stage)) return;
         ClassWriter writer = new ClassWriter(0);
         classNode.accept(writer);
         dumpClassStaged(writer.toByteArray(), className, stage);
     }
 
     public static void dumpClassStaged(byte[] classNode, String className, DumpStage stage){
-        if (!Configs.Debug.DEBUG.get()) return;
-        if (!stage.shouldDump()) return;
-        if (!className.startsWith(Configs.Debug.DumpClass.DUMP_PREFIX.get())) return;
+        if (!shouldDump(className, stage)) return;
         className = className.replace(".","/");
         Path dumpPath = Configs.Debug.DumpClass.DUMP_PATH.get().toPath().resolve(stage.name().toLowerCase()).resolve(className + ".class");
         try {
@@ -32,6 +31,10 @@ public class ClassDumper {
         }
     }
 
+    private static boolean shouldDump(String className, DumpStage stage) {
+        return Configs.Debug.DEBUG.get() && stage.shouldDump() && className.startsWith(Configs.Debug.DumpClass.DUMP_PREFIX.get());
+    }
+
     private static void ensureDumpDir(Path path) throws IOException {
         if (Files.exists(path)) {
             return;
@@ -3,7 +3,6 @@ package net.xiaoyu233.fml.config;
 import com.google.common.base.Charsets;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
 import net.xiaoyu233.fml.FishModLoader;
 
 import javax.annotation.Nonnull;
@@ -60,15 +59,19 @@ public class ConfigRoot extends ConfigCategory{
                 FishModLoader.LOGGER.error("Cannot create config file",e);
             }
         }
-        try (InputStreamReader reader = new InputStreamReader(Files.newInputStream(configFile.toPath()), Charsets.UTF_8)){
-            read = this.read(new JsonParser().parse(reader));
+        ConfigSnapshot snapshot = null;
+        try {
+            snapshot = ConfigSnapshot.get(configFile.toPath());
+            read = this.read(snapshot.getJson());
         }catch (Throwable e) {
             FishModLoader.LOGGER.error("Error in reading config",e);
         }
         try {
             if (read.isDirty()){
-                try (FileWriter writer = new FileWriter(configFile)){
-                    GSON.toJson(read.getChanged(),writer);
+                String content = GSON.toJson(read.getChanged());
+                //Only rewrite if the content really changed
+                if (snapshot == null || !snapshot.hasContent(content)) {
+                    Files.write(configFile.toPath(), content.getBytes(Charsets.UTF_8));
                 }
             }
         }catch (Throwable e) {
@@ -0,0 +1,184 @@
+package net.xiaoyu233.fml.config;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import net.xiaoyu233.fml.FishModLoader;
+import net.xiaoyu233.fml.relaunch.Launch;
+import net.xiaoyu233.fml.util.LoaderExecutor;
+import net.xiaoyu233.fml.util.Log;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Content of a config file, read and parsed on {@link LoaderExecutor} ahead of the {@link ConfigRoot} using it.
+ *
+ * <p>The config files of the {@link ConfigRegistry ConfigRegistries} registered during the last launch, listed in
+ * {@code .fml/configFiles.txt}, are prefetched while the mods are discovered, so when a mod's registry is reloaded in
+ * its entrypoint the file is usually parsed already. Other files in the config directory are never read ahead. A
+ * prefetched snapshot is used once and only if the file did not change since, every other read goes to the disk. The
+ * hash of the content lets {@link ConfigRoot} skip rewriting a file whose content would stay the same.
+ */
+public final class ConfigSnapshot {
+    private static final long MAX_PREFETCH_SIZE = 1 << 20;
+    private static final Map<Path, CompletableFuture<ConfigSnapshot>> prefetched = new ConcurrentHashMap<>();
+    private static volatile List<String> lastRegistered = Collections.emptyList();
+    private final long size;
+    private final long lastModified;
+    private final byte[] hash;
+    private final JsonElement json;
+
+    private ConfigSnapshot(long size, long lastModified, byte[] hash, JsonElement json) {
+        this.size = size;
+        this.lastModified = lastModified;
+        this.hash = hash;
+        this.json = json;
+    }
+
+    private static Path getRegisteredFile() {
+        return Path.of(Launch.minecraftHome, ".fml", "configFiles.txt");
+    }
+
+    /**
+     * Starts reading the config files registered during the last launch in the background.
+     */
+    public static void prefetchRegistered() {
+        if (!Configs.ModLoading.CONFIG_PREFETCH.get()) {
+            return;
+        }
+        LoaderExecutor.get().execute(() -> {
+            Path file = getRegisteredFile();
+            try {
+                List<String> registered = Files.readAllLines(file, StandardCharsets.UTF_8);
+                lastRegistered = registered;
+                for (String line : registered) {
+                    if (!line.isEmpty()) {
+                        prefetch(Path.of(line));
+                    }
+                }
+            } catch (NoSuchFileException e) {
+                // first launch
+            } catch (IOException | RuntimeException e) {
+                Log.warn("Cannot read the registered config files from {}", file, e);
+            }
+        });
+    }
+
+    /**
+     * Starts reading the file in the background, unless it is already being read.
+     */
+    public static void prefetch(Path file) {
+        Path key = file.toAbsolutePath().normalize();
+        if (prefetched.containsKey(key)) {
+            return;
+        }
+        try {
+            if (!Files.isRegularFile(key) || Files.size(key) > MAX_PREFETCH_SIZE) {
+                return;
+            }
+        } catch (IOException e) {
+            return;
+        }
+        prefetched.putIfAbsent(key, CompletableFuture.supplyAsync(() -> {
+            try {
+                return read(key);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, LoaderExecutor.get()));
+    }
+
+    /**
+     * Drops the snapshots nobody asked for and remembers the registered config files for the next launch, called once
+     * the configs of the mods are loaded.
+     */
+    public static void finishPrefetch() {
+        prefetched.clear();
+        if (!Configs.ModLoading.CONFIG_PREFETCH.get()) {
+            return;
+        }
+        List<String> registered = new ArrayList<>();
+        for (ConfigRegistry registry : FishModLoader.getAllConfigRegistries()) {
+            registered.add(registry.getPathToConfigFile().toPath().toAbsolutePath().normalize().toString());
+        }
+        if (registered.equals(lastRegistered)) {
+            return;
+        }
+        Path file = getRegisteredFile();
+        try {
+            Files.createDirectories(file.getParent());
+            Files.write(file, registered, StandardCharsets.UTF_8);
+            lastRegistered = registered;
+        } catch (IOException e) {
+            Log.warn("Cannot write the registered config files to {}", file, e);
+        }
+    }
+
+    /**
+     * @return the prefetched snapshot of the file if it is still current, otherwise the file read now
+     */
+    public static ConfigSnapshot get(Path file) throws IOException {
+        Path key = file.toAbsolutePath().normalize();
+        CompletableFuture<ConfigSnapshot> future = prefetched.remove(key);
+        if (future != null) {
+            try {
+                ConfigSnapshot ret = future.join();
+                if (ret.isCurrent(key)) {
+                    return ret;
+                }
+            } catch (CompletionException e) {
+                // read again to report the error to the caller
+            }
+        }
+        return read(key);
+    }
+
+    private static ConfigSnapshot read(Path file) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        byte[] content = Files.readAllBytes(file);
+        JsonElement json = new JsonParser().parse(new String(content, StandardCharsets.UTF_8));
+        return new ConfigSnapshot(attributes.size(), attributes.lastModifiedTime().toMillis(), hash(content), json);
+    }
+
+    private boolean isCurrent(Path file) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        return attributes.size() == size && attributes.lastModifiedTime().toMillis() == lastModified;
+    }
+
+    /**
+     * @return the parsed content, owned by the caller
+     */
+    public JsonElement getJson() {
+        return json;
+    }
+
+    /**
+     * @return whether writing the content would leave the file as it was read
+     */
+    public boolean hasContent(String content) {
+        return Arrays.equals(hash, hash(content.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static byte[] hash(byte[] content) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(content);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -18,11 +18,22 @@ public class Configs {
                     .addEntry(new ConfigEntry<>("allowClientMods", Codec.BOOLEAN, true, Server.ALLOW_CLIENT_MODS).withComment("允许客户端使用客户端模组(如坐标器)"))).
             addEntry(new ConfigCategory("Client").withComment("客户端")
                     .addEntry(new ConfigEntry<>("fpsLimit", Codec.INTEGER, 120, Client.FPS_LIMIT).withComment("FPS最大值"))).
+            addEntry(new ConfigCategory("ClassLoading").withComment("类加载")
+                    .addEntry(new ConfigEntry<>("transformCache", Codec.BOOLEAN, false, ClassLoading.TRANSFORM_CACHE).withComment("缓存只被AccessWidener/ClassTinkerers修改的类的转换结果以加快启动，Mixin目标类不会被缓存(实验性，开发环境与调试模式下不生效)"))
+                    .addEntry(new ConfigEntry<>("prewarm", Codec.BOOLEAN, false, ClassLoading.PREWARM).withComment("在游戏启动前多线程预先转换Mixin与AccessWidener的目标类"))
+                    .addEntry(new ConfigEntry<>("classNodeCacheSize", Codec.INTEGER, 2048, ClassLoading.CLASS_NODE_CACHE_SIZE).withComment("Mixin读取的类结构缓存数量上限(0为关闭)"))).
+            addEntry(new ConfigCategory("ModLoading").withComment("模组加载")
+                    .addEntry(new ConfigEntry<>("discoveryCache", Codec.BOOLEAN, true, ModLoading.DISCOVERY_CACHE).withComment("缓存模组jar的元数据与内嵌jar结构，未变化的jar启动时不再打开读取"))
+                    .addEntry(new ConfigEntry<>("resolutionCache", Codec.BOOLEAN, true, ModLoading.RESOLUTION_CACHE).withComment("缓存模组依赖求解结果，模组未变化时跳过求解，少量变化时以上次结果为基础求解"))
+                    .addEntry(new ConfigEntry<>("parallelEntrypoints", Codec.BOOLEAN, false, ModLoading.PARALLEL_ENTRYPOINTS).withComment("声明了fml:parallelEntrypoints的模组在线程池中按依赖顺序并行执行入口点(实验性)"))
+                    .addEntry(new ConfigEntry<>("slowEntrypointThreshold", Codec.INTEGER, 1000, ModLoading.SLOW_ENTRYPOINT_THRESHOLD).withComment("模组入口点耗时超过该毫秒数时输出警告并在启动耗时排名中标记(0为关闭)"))
+                    .addEntry(new ConfigEntry<>("configPrefetch", Codec.BOOLEAN, true, ModLoading.CONFIG_PREFETCH).withComment("在后台线程中并行预读取配置文件，内容未变化时不再重写配置文件"))).
             addEntry(new ConfigCategory("Debug").withComment("调试").
                     addEntry(new ConfigEntry<>("debug", Debug.DEBUG).withComment("开启调试模式")).
                     addEntry(new ConfigEntry<>("dev_env", Debug.DEV_ENV).withComment("开发环境下自动开启MITE的DEV模式")).
                     addEntry(new ConfigEntry<>("print_entity_damage_info", Debug.PRINT_ENTITY_DAMAGE_INFO).withComment("输出实体受到伤害信息")).
                     addEntry(new ConfigEntry<>("printClassloadInfo", Codec.BOOLEAN, false, Debug.PRINT_CLASSLOAD_INFO).withComment("输出类加载信息")).
+                    addEntry(new ConfigEntry<>("profileClassLoading", Codec.BOOLEAN, false, Debug.PROFILE_CLASS_LOADING).withComment("记录各类加载阶段耗时，在进入主菜单或服务端启动完成时输出到.fml/profile")).
                     addEntry(new ConfigCategory("DumpClass").withComment("类导出").
                             addEntry(new ConfigEntry<>("dumpPath", Codec.FILE, new File("." + File.separator + ".mixin.out"), Debug.DumpClass.DUMP_PATH).withComment("类文件输出目录")).
                             addEntry(new ConfigEntry<>("dumpPrefix", Codec.STRING, "net.minecraft", Debug.DumpClass.DUMP_PREFIX).withComment("导出类文件包名所需前缀")).
@@ -47,10 +58,25 @@ public class Configs {
         public static final FieldReference<Integer> FPS_LIMIT = new FieldReference<>(120);
     }
 
+    public static class ClassLoading {
+        public static final FieldReference<Boolean> TRANSFORM_CACHE = new FieldReference<>(false);
+        public static final FieldReference<Boolean> PREWARM = new FieldReference<>(false);
+        public static final FieldReference<Integer> CLASS_NODE_CACHE_SIZE = new FieldReference<>(2048);
+    }
+
+    public static class ModLoading {
+        public static final FieldReference<Boolean> DISCOVERY_CACHE = new FieldReference<>(true);
+        public static final FieldReference<Boolean> RESOLUTION_CACHE = new FieldReference<>(true);
+        public static final FieldReference<Boolean> PARALLEL_ENTRYPOINTS = new FieldReference<>(false);
+        public static final FieldReference<Integer> SLOW_ENTRYPOINT_THRESHOLD = new FieldReference<>(1000);
+        public static final FieldReference<Boolean> CONFIG_PREFETCH = new FieldReference<>(true);
+    }
+
     public static class Debug {
         public static final FieldReference<Boolean> DEBUG = new FieldReference<>(false);
         public static final FieldReference<Boolean> DEV_ENV = new FieldReference<>(true);
         public static final FieldReference<Boolean> PRINT_CLASSLOAD_INFO = new FieldReference<>(false);
+        public static final FieldReference<Boolean> PROFILE_CLASS_LOADING = new FieldReference<>(false);
         public static final FieldReference<Boolean> PRINT_ENTITY_DAMAGE_INFO = new FieldReference<>(true);
 
         public static class DumpClass {
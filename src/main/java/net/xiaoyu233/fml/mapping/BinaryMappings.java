@@ -0,0 +1,273 @@
+package net.xiaoyu233.fml.mapping;
+
+import com.google.common.hash.Hashing;
+import net.fabricmc.tinyremapper.IMappingProvider;
+import net.fabricmc.tinyremapper.TinyUtils;
+import net.xiaoyu233.fml.util.Log;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Pre-parsed form of tiny v2 mappings that is memory-mapped and decoded on demand instead of parsing the text
+ * mappings on every launch.
+ *
+ * <p>The binary file is generated on first use next to the other caches and named after a hash of the text mappings,
+ * so updated mappings are converted again. Mappings using features this format does not cover (parameter or local
+ * names, escaped names, descriptors not in the source namespace) fall back to the text provider of TinyRemapper.
+ *
+ * <p>Layout, big endian: magic, format version, string count, string offsets, length prefixed UTF-8 strings, then
+ * the classes as {@code src, dst, fieldCount, (name, desc, dst)..., methodCount, (name, desc, dst)...} string
+ * indexes, with -1 for a missing class name.
+ */
+public final class BinaryMappings implements IMappingProvider {
+    private static final int MAGIC = 0x464D4C4D;
+    private static final int FORMAT_VERSION = 1;
+    private static final String SUFFIX = ".bin";
+    private final ByteBuffer buffer;
+    private final String[] strings;
+    private final int[] stringOffsets;
+    private final int recordsStart;
+
+    private BinaryMappings(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        try {
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT_VERSION) {
+                throw new IOException("Not a binary mapping file of format " + FORMAT_VERSION);
+            }
+            int count = buffer.getInt(8);
+            this.stringOffsets = new int[count];
+            int offset = 12 + count * 4;
+            for (int i = 0; i < count; i++) {
+                this.stringOffsets[i] = buffer.getInt(12 + i * 4);
+            }
+            this.strings = new String[count];
+            this.recordsStart = count == 0 ? offset : this.stringOffsets[count - 1] + 4 + buffer.getInt(this.stringOffsets[count - 1]);
+        } catch (IndexOutOfBoundsException | NegativeArraySizeException e) {
+            throw new IOException("Truncated binary mapping file", e);
+        }
+    }
+
+    /**
+     * Returns a provider for the given text mappings, reusing or creating the binary form in the cache directory.
+     *
+     * @param name     file name prefix of the binary form, e.g. the mapping resource name
+     * @param mappings the tiny v2 text mappings
+     */
+    public static IMappingProvider open(String name, byte[] mappings, String from, String to, Path cacheDir) {
+        String prefix = name + "-" + from + "-" + to + "-";
+        Path file = cacheDir.resolve(prefix + Hashing.murmur3_128().newHasher().putInt(FORMAT_VERSION).putBytes(mappings).hash() + SUFFIX);
+        if (Files.exists(file)) {
+            try {
+                return map(file);
+            } catch (IOException e) {
+                Log.warn("Cannot read binary mappings {}, converting them again", file, e);
+            }
+        }
+
+        long start = System.currentTimeMillis();
+        byte[] binary;
+        try {
+            binary = convert(mappings, from, to);
+        } catch (IOException e) {
+            binary = null;
+        }
+        if (binary == null) {
+            Log.info("Mappings {} cannot be stored in binary form, reading them as text", name);
+            return TinyUtils.createTinyMappingProvider(new BufferedReader(new InputStreamReader(new ByteArrayInputStream(mappings), StandardCharsets.UTF_8)), from, to);
+        }
+
+        try {
+            Files.createDirectories(cacheDir);
+            Path tempFile = Files.createTempFile(cacheDir, prefix, ".tmp");
+            Files.write(tempFile, binary);
+            try {
+                Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+            Log.info("Converted mappings {} to binary form in {} ms", name, System.currentTimeMillis() - start);
+            deleteStale(cacheDir, prefix, file);
+        } catch (IOException e) {
+            Log.warn("Cannot store binary mappings {}", file, e);
+        }
+        try {
+            return new BinaryMappings(ByteBuffer.wrap(binary));
+        } catch (IOException e) {
+            throw new IllegalStateException("Converted mappings are unreadable", e);
+        }
+    }
+
+    private static BinaryMappings map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new BinaryMappings(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    @Override
+    public void load(MappingAcceptor out) {
+        ByteBuffer records = this.buffer.duplicate();
+        records.position(this.recordsStart);
+        try {
+            int classCount = records.getInt();
+            for (int i = 0; i < classCount; i++) {
+                String owner = this.string(records.getInt());
+                int mapped = records.getInt();
+                if (mapped >= 0) {
+                    out.acceptClass(owner, this.string(mapped));
+                }
+                int fieldCount = records.getInt();
+                for (int j = 0; j < fieldCount; j++) {
+                    out.acceptField(new Member(owner, this.string(records.getInt()), this.string(records.getInt())), this.string(records.getInt()));
+                }
+                int methodCount = records.getInt();
+                for (int j = 0; j < methodCount; j++) {
+                    out.acceptMethod(new Member(owner, this.string(records.getInt()), this.string(records.getInt())), this.string(records.getInt()));
+                }
+            }
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IllegalStateException("Corrupted binary mappings", e);
+        }
+    }
+
+    private String string(int index) {
+        String string = this.strings[index];
+        if (string == null) {
+            int offset = this.stringOffsets[index];
+            byte[] bytes = new byte[this.buffer.getInt(offset)];
+            this.buffer.get(offset + 4, bytes);
+            // racing decodes produce equal strings, so the cache needs no synchronization
+            string = new String(bytes, StandardCharsets.UTF_8);
+            this.strings[index] = string;
+        }
+        return string;
+    }
+
+    /**
+     * @return the binary form of the tiny v2 mappings, or null if they use features the binary form does not cover
+     */
+    static byte[] convert(byte[] mappings, String from, String to) throws IOException {
+        Map<String, Integer> stringIndexes = new HashMap<>();
+        List<String> strings = new ArrayList<>();
+        List<int[]> classes = new ArrayList<>();
+        List<List<int[]>> fields = new ArrayList<>();
+        List<List<int[]>> methods = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(mappings), StandardCharsets.UTF_8))) {
+            String header = reader.readLine();
+            if (header == null) {
+                return null;
+            }
+            List<String> columns = Arrays.asList(header.split("\t"));
+            // member descriptors are in the first namespace, other source namespaces would need them remapped
+            if (columns.size() < 5 || !columns.get(0).equals("tiny") || !columns.get(1).equals("2") || columns.indexOf(from) != 3 || columns.indexOf(to) < 4) {
+                return null;
+            }
+            int fromColumn = columns.indexOf(from) - 2;
+            int toColumn = columns.indexOf(to) - 2;
+
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split("\t", -1);
+                int depth = 0;
+                while (depth < parts.length && parts[depth].isEmpty()) {
+                    depth++;
+                }
+                if (depth == parts.length) {
+                    continue;
+                }
+                String kind = parts[depth];
+                if (depth == 0 && kind.equals("c") && parts.length > toColumn) {
+                    String mapped = parts[toColumn];
+                    classes.add(new int[]{intern(parts[fromColumn], stringIndexes, strings), mapped.isEmpty() ? -1 : intern(mapped, stringIndexes, strings)});
+                    fields.add(new ArrayList<>());
+                    methods.add(new ArrayList<>());
+                } else if (depth == 1 && (kind.equals("f") || kind.equals("m")) && !classes.isEmpty() && parts.length > toColumn + 2) {
+                    String mapped = parts[toColumn + 2];
+                    if (!mapped.isEmpty()) {
+                        int[] member = {intern(parts[fromColumn + 2], stringIndexes, strings), intern(parts[2], stringIndexes, strings), intern(mapped, stringIndexes, strings)};
+                        (kind.equals("f") ? fields : methods).get(classes.size() - 1).add(member);
+                    }
+                } else if (depth == 0 || !kind.equals("c")) {
+                    // header properties, parameters, locals or anything unknown, only comments are safe to drop
+                    return null;
+                }
+            }
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(mappings.length / 2);
+        DataOutputStream output = new DataOutputStream(bytes);
+        output.writeInt(MAGIC);
+        output.writeInt(FORMAT_VERSION);
+        output.writeInt(strings.size());
+        List<byte[]> encoded = new ArrayList<>(strings.size());
+        int offset = 12 + strings.size() * 4;
+        for (String string : strings) {
+            byte[] stringBytes = string.getBytes(StandardCharsets.UTF_8);
+            encoded.add(stringBytes);
+            output.writeInt(offset);
+            offset += 4 + stringBytes.length;
+        }
+        for (byte[] stringBytes : encoded) {
+            output.writeInt(stringBytes.length);
+            output.write(stringBytes);
+        }
+
+        output.writeInt(classes.size());
+        for (int i = 0; i < classes.size(); i++) {
+            output.writeInt(classes.get(i)[0]);
+            output.writeInt(classes.get(i)[1]);
+            for (List<int[]> members : List.of(fields.get(i), methods.get(i))) {
+                output.writeInt(members.size());
+                for (int[] member : members) {
+                    output.writeInt(member[0]);
+                    output.writeInt(member[1]);
+                    output.writeInt(member[2]);
+                }
+            }
+        }
+        output.flush();
+        return bytes.toByteArray();
+    }
+
+    private static int intern(String string, Map<String, Integer> indexes, List<String> strings) {
+        return indexes.computeIfAbsent(string, key -> {
+            strings.add(key);
+            return strings.size() - 1;
+        });
+    }
+
+    private static void deleteStale(Path cacheDir, String prefix, Path current) {
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(cacheDir, path -> path.getFileName().toString().startsWith(prefix))) {
+            for (Path entry : stream) {
+                if (!entry.equals(current)) {
+                    try {
+                        Files.delete(entry);
+                    } catch (IOException ignored) {
+                        // still mapped by another instance, try again next time
+                    }
+                }
+            }
+        } catch (IOException e) {
+            Log.warn("Cannot clean up binary mappings in {}", cacheDir, e);
+        }
+    }
+}
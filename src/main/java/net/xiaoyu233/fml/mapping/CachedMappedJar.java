@@ -1,5 +1,7 @@
 package net.xiaoyu233.fml.mapping;
 
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
 import net.fabricmc.tinyremapper.IMappingProvider;
 import net.fabricmc.tinyremapper.NonClassCopyMode;
 import net.fabricmc.tinyremapper.OutputConsumerPath;
@@ -7,49 +9,514 @@ import net.fabricmc.tinyremapper.TinyRemapper;
 import net.xiaoyu233.fml.util.Constants;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.objectweb.asm.ClassReader;
 
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
 
+/**
+ * Remapped game jar cache, entries are named after a hash of the input jar, the mappings and the loader version,
+ * so patching the game jar or changing the mappings always produces a fresh jar.
+ *
+ * <p>The cache directory is locked while an entry is looked up or created, so that several game instances sharing it
+ * never see a half written jar.
+ *
+ * <p>Next to each entry an index of the CRCs of the source classes is kept. When the game jar changes but the
+ * mappings do not, and only a few classes differ from the previous entry, only those classes are remapped (with the
+ * whole new jar as class path) and the others are copied from the previous entry. TinyRemapper spreads member mappings
+ * through the class hierarchy, so the subclasses of changed or removed classes and every class referring to one of
+ * them are remapped as well.
+ */
 public class CachedMappedJar {
     private static final Logger LOGGER = LogManager.getLogger("GameRemapper");
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int THREADS = Math.max(1, Integer.getInteger("fml.remapThreads", Runtime.getRuntime().availableProcessors()));
+    // maximum number of added, changed or removed classes for an incremental remap, 0 always remaps the whole jar
+    private static final int INCREMENTAL_LIMIT = Integer.getInteger("fml.incrementalRemapLimit", 256);
+    private static final String INDEX_SUFFIX = ".index";
     private final Path jarSource;
     private final Path cacheDir;
-    private final TinyRemapper remapper;
+    private final Supplier<IMappingProvider> providerFactory;
+    private IMappingProvider provider;
+    private final byte[] mappings;
 
-    public CachedMappedJar(Path jarSource, IMappingProvider provider, File minecraftDir) throws IOException {
+    /**
+     * @param providerFactory creates the mapping provider, only called if the jar actually has to be remapped
+     * @param mappings        the text mappings, only hashed to identify the cache entries
+     */
+    public CachedMappedJar(Path jarSource, Supplier<IMappingProvider> providerFactory, byte[] mappings, File minecraftDir) throws IOException {
         this.jarSource = jarSource;
-        TinyRemapper.Builder builder = TinyRemapper.newRemapper()
-                .withMappings(provider)
-                .ignoreConflicts(true)
-                .checkPackageAccess(true);
-        this.remapper = builder.build();
+        this.providerFactory = providerFactory;
+        this.mappings = mappings;
         this.cacheDir = minecraftDir.toPath().resolve(".fml").resolve("remappedJars");
         Files.createDirectories(cacheDir);
     }
 
     public Path ensureJarMapped() {
-        Path mappedJar = this.cacheDir.resolve(jarSource.getFileName() + "-" + Constants.VERSION + ".jar");
-        boolean injectionsInvalid = false;
+        String prefix = jarSource.getFileName() + "-";
+        try (FileChannel lockChannel = FileChannel.open(this.cacheDir.resolve(".lock"), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+             FileLock ignored = lockChannel.lock()) {
+            String mappingsKey = this.computeMappingsKey();
+            Path mappedJar = this.cacheDir.resolve(prefix + this.computeKey(mappingsKey) + ".jar");
+            if (Files.exists(mappedJar)) {
+                LOGGER.info("Found mapped jar cache " + mappedJar.getFileName());
+                return mappedJar;
+            }
 
-        if (Files.exists(mappedJar) && !injectionsInvalid){
-            LOGGER.info("Found mapped jar cache");
+            Map<String, Long> classes = this.readClassCrcs();
+            Path tempJar = this.cacheDir.resolve(mappedJar.getFileName() + ".tmp");
+            Files.deleteIfExists(tempJar);
+            long start = System.currentTimeMillis();
+            if (!this.remapIncrementally(prefix, mappingsKey, classes, tempJar)) {
+                LOGGER.info("Mapped jar cache not found, remapping with TinyRemapper on FML version " + Constants.VERSION + " using " + THREADS + " threads");
+                Files.deleteIfExists(tempJar);
+                this.remapFully(tempJar);
+            }
+            try {
+                Files.move(tempJar, mappedJar, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempJar, mappedJar, StandardCopyOption.REPLACE_EXISTING);
+            }
+            LOGGER.info("Minecraft jar has successfully remapped in " + (System.currentTimeMillis() - start) + " ms");
+
+            this.writeIndex(mappedJar, mappingsKey, classes);
+            this.deleteStaleEntries(prefix, mappedJar);
             return mappedJar;
-        }else {
-                LOGGER.info("Mapped jar cache not found, remapping with TinyRemapper on FML version " + Constants.VERSION);
-            try (OutputConsumerPath outputConsumer = new OutputConsumerPath.Builder(mappedJar).build()) {
-                outputConsumer.addNonClassFiles(this.jarSource, NonClassCopyMode.UNCHANGED, remapper);
-                this.remapper.readInputs(this.jarSource);
-                remapper.apply(outputConsumer);
-                LOGGER.info("Minecraft jar has successfully remapped");
-            } catch (IOException e) {
-                throw new RuntimeException(e);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private TinyRemapper createRemapper() {
+        if (this.provider == null) {
+            this.provider = this.providerFactory.get();
+        }
+        return TinyRemapper.newRemapper()
+                .withMappings(this.provider)
+                .ignoreConflicts(true)
+                .checkPackageAccess(true)
+                .threads(THREADS)
+                .build();
+    }
+
+    private void remapFully(Path tempJar) throws IOException {
+        TinyRemapper remapper = this.createRemapper();
+        try (OutputConsumerPath outputConsumer = new OutputConsumerPath.Builder(tempJar).threadSyncWrites(true).build()) {
+            // the classes are parsed on the remapper threads while the resources are copied here
+            CompletableFuture<?> inputs = remapper.readInputsAsync(this.jarSource);
+            outputConsumer.addNonClassFiles(this.jarSource, NonClassCopyMode.UNCHANGED, remapper);
+            inputs.join();
+            remapper.apply(outputConsumer);
+        } finally {
+            remapper.finish();
+        }
+    }
+
+    /**
+     * @return false if there is no usable previous entry or too many classes changed, the caller then remaps the whole jar
+     */
+    private boolean remapIncrementally(String prefix, String mappingsKey, Map<String, Long> classes, Path tempJar) throws IOException {
+        if (INCREMENTAL_LIMIT <= 0) {
+            return false;
+        }
+
+        Path previousJar = null;
+        Map<String, Long> previousClasses = null;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(this.cacheDir, path -> path.getFileName().toString().startsWith(prefix) && path.getFileName().toString().endsWith(".jar"))) {
+            for (Path entry : stream) {
+                Map<String, Long> index = this.readIndex(entry, mappingsKey);
+                if (index != null) {
+                    previousJar = entry;
+                    previousClasses = index;
+                    break;
+                }
+            }
+        }
+        if (previousJar == null) {
+            return false;
+        }
+
+        Set<String> changed = new LinkedHashSet<>();
+        for (Map.Entry<String, Long> entry : classes.entrySet()) {
+            if (!entry.getValue().equals(previousClasses.get(entry.getKey()))) {
+                changed.add(entry.getKey());
+            }
+        }
+        int removed = 0;
+        for (String name : previousClasses.keySet()) {
+            if (!classes.containsKey(name)) {
+                removed++;
+            }
+        }
+        if (changed.size() + removed > INCREMENTAL_LIMIT) {
+            LOGGER.info((changed.size() + removed) + " classes differ from " + previousJar.getFileName() + ", above the incremental remap limit of " + INCREMENTAL_LIMIT);
+            return false;
+        }
+
+        Map<String, String> classMappings = this.readClassMappings();
+        if (classMappings == null) {
+            return false;
+        }
+
+        try (ZipFile previous = new ZipFile(previousJar.toFile()); ZipFile source = new ZipFile(this.jarSource.toFile())) {
+            Set<String> seeds = new HashSet<>();
+            for (String name : changed) {
+                seeds.add(toInternalName(name));
+            }
+            for (String name : previousClasses.keySet()) {
+                if (!classes.containsKey(name)) {
+                    seeds.add(toInternalName(name));
+                }
+            }
+            Set<String> dependents = findDependents(source, classes.keySet(), changed, seeds);
+            if (changed.size() + removed + dependents.size() > INCREMENTAL_LIMIT) {
+                LOGGER.info((changed.size() + removed) + " classes differ from " + previousJar.getFileName() + " and " + dependents.size() + " depend on them, above the incremental remap limit of " + INCREMENTAL_LIMIT);
+                return false;
+            }
+            Set<String> toRemap = new LinkedHashSet<>(changed);
+            toRemap.addAll(dependents);
+
+            LOGGER.info("Incrementally remapping " + changed.size() + " changed classes and " + dependents.size() + " classes depending on them or on " + removed + " removed classes based on " + previousJar.getFileName());
+            // resolve every unchanged class before doing any work, an unexpected name means the previous entry cannot be trusted
+            List<ZipEntry> unchanged = new ArrayList<>(classes.size() - toRemap.size());
+            for (String name : classes.keySet()) {
+                if (toRemap.contains(name)) {
+                    continue;
+                }
+                ZipEntry mapped = previous.getEntry(mapClassName(toInternalName(name), classMappings) + ".class");
+                if (mapped == null) {
+                    LOGGER.info("Cannot find the remapped " + name + " in " + previousJar.getFileName() + ", falling back to a full remap");
+                    return false;
+                }
+                unchanged.add(mapped);
+            }
+
+            Map<String, byte[]> remapped = this.remapClasses(source, toRemap, tempJar);
+            if (remapped.size() != toRemap.size()) {
+                LOGGER.info("TinyRemapper produced " + remapped.size() + " of " + toRemap.size() + " classes, falling back to a full remap");
+                return false;
+            }
+
+            try (ZipOutputStream outputStream = new ZipOutputStream(Files.newOutputStream(tempJar))) {
+                Enumeration<? extends ZipEntry> entries = source.entries();
+                while (entries.hasMoreElements()) {
+                    ZipEntry entry = entries.nextElement();
+                    if (!isClass(entry.getName())) {
+                        copyEntry(source, entry, entry.getName(), outputStream);
+                    }
+                }
+                for (ZipEntry entry : unchanged) {
+                    copyEntry(previous, entry, entry.getName(), outputStream);
+                }
+                for (Map.Entry<String, byte[]> entry : remapped.entrySet()) {
+                    outputStream.putNextEntry(new ZipEntry(entry.getKey() + ".class"));
+                    outputStream.write(entry.getValue());
+                    outputStream.closeEntry();
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Remaps the given classes of the source jar, resolving their hierarchy against the whole source jar.
+     *
+     * @return the remapped class bytes by remapped internal name
+     */
+    private Map<String, byte[]> remapClasses(ZipFile source, Set<String> names, Path tempJar) throws IOException {
+        Map<String, byte[]> remapped = new ConcurrentHashMap<>();
+        if (names.isEmpty()) {
+            return remapped;
+        }
+
+        // TinyRemapper only reads archives with a .jar or .zip extension
+        Path changedJar = this.cacheDir.resolve(tempJar.getFileName() + ".changed.jar");
+        try {
+            try (ZipOutputStream outputStream = new ZipOutputStream(Files.newOutputStream(changedJar))) {
+                for (String name : names) {
+                    copyEntry(source, source.getEntry(name), name, outputStream);
+                }
+            }
+
+            TinyRemapper remapper = this.createRemapper();
+            try {
+                CompletableFuture<?> classPath = remapper.readClassPathAsync(this.jarSource);
+                remapper.readInputs(changedJar);
+                classPath.join();
+                remapper.apply(remapped::put);
             } finally {
                 remapper.finish();
             }
+        } finally {
+            Files.deleteIfExists(changedJar);
+        }
+        return remapped;
+    }
+
+    /**
+     * Finds the unchanged classes whose remapped form may differ because of the changed or removed classes: every
+     * subclass of those, transitively, since member mappings are inherited, and every class referring to one of those
+     * classes or their subclasses, since a member reference is resolved through the hierarchy of its owner.
+     *
+     * @param seeds the internal names of the changed and removed classes
+     * @return the entry names of the unchanged classes to remap as well
+     */
+    private static Set<String> findDependents(ZipFile source, Set<String> classes, Set<String> changed, Set<String> seeds) throws IOException {
+        Map<String, List<String>> subclasses = new HashMap<>();
+        Map<String, Set<String>> references = new LinkedHashMap<>();
+        for (String name : classes) {
+            if (changed.contains(name)) {
+                continue;
+            }
+            ClassReader reader;
+            try (InputStream inputStream = source.getInputStream(source.getEntry(name))) {
+                reader = new ClassReader(inputStream);
+            }
+            String internalName = toInternalName(name);
+            if (reader.getSuperName() != null) {
+                subclasses.computeIfAbsent(reader.getSuperName(), key -> new ArrayList<>()).add(internalName);
+            }
+            for (String itf : reader.getInterfaces()) {
+                subclasses.computeIfAbsent(itf, key -> new ArrayList<>()).add(internalName);
+            }
+            references.put(name, readClassConstants(reader));
+        }
+
+        Set<String> affected = new HashSet<>(seeds);
+        Deque<String> queue = new ArrayDeque<>(seeds);
+        while (!queue.isEmpty()) {
+            for (String subclass : subclasses.getOrDefault(queue.poll(), Collections.emptyList())) {
+                if (affected.add(subclass)) {
+                    queue.add(subclass);
+                }
+            }
+        }
+
+        Set<String> dependents = new LinkedHashSet<>();
+        for (Map.Entry<String, Set<String>> entry : references.entrySet()) {
+            if (affected.contains(toInternalName(entry.getKey())) || !Collections.disjoint(entry.getValue(), affected)) {
+                dependents.add(entry.getKey());
+            }
+        }
+        return dependents;
+    }
+
+    /**
+     * @return the internal names of the classes in the constant pool, which include the owners of every member reference
+     */
+    private static Set<String> readClassConstants(ClassReader reader) {
+        Set<String> ret = new HashSet<>();
+        char[] buffer = new char[reader.getMaxStringLength()];
+        for (int i = 1; i < reader.getItemCount(); i++) {
+            int offset = reader.getItem(i);
+            if (offset > 0 && reader.readByte(offset - 1) == 7) { // CONSTANT_Class
+                String name = reader.readUTF8(offset, buffer);
+                // array types are referenced by descriptor
+                int start = name.lastIndexOf('[') + 1;
+                if (start > 0 && name.charAt(start) == 'L') {
+                    name = name.substring(start + 1, name.length() - 1);
+                }
+                ret.add(name);
+            }
+        }
+        return ret;
+    }
+
+    private static String toInternalName(String entryName) {
+        return entryName.substring(0, entryName.length() - ".class".length());
+    }
+
+    private static void copyEntry(ZipFile zip, ZipEntry entry, String name, ZipOutputStream outputStream) throws IOException {
+        outputStream.putNextEntry(new ZipEntry(name));
+        if (!entry.isDirectory()) {
+            try (InputStream inputStream = zip.getInputStream(entry)) {
+                inputStream.transferTo(outputStream);
+            }
+        }
+        outputStream.closeEntry();
+    }
+
+    private static boolean isClass(String entryName) {
+        return entryName.endsWith(".class") && !entryName.startsWith("META-INF/");
+    }
+
+    private static String mapClassName(String name, Map<String, String> classMappings) {
+        String mapped = classMappings.get(name);
+        if (mapped != null) {
+            return mapped;
+        }
+        // nested classes missing from the mappings follow their outer class
+        int separator = name.lastIndexOf('$');
+        return separator > 0 ? mapClassName(name.substring(0, separator), classMappings) + name.substring(separator) : name;
+    }
+
+    /**
+     * Reads the class names from the tiny v2 mappings, from the official to the named namespace.
+     *
+     * @return the mapped internal names by official name, or null if the mappings are not in a known format
+     */
+    private Map<String, String> readClassMappings() throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(this.mappings), StandardCharsets.UTF_8))) {
+            String header = reader.readLine();
+            if (header == null) {
+                return null;
+            }
+            List<String> columns = Arrays.asList(header.split("\t"));
+            if (columns.size() < 5 || !columns.get(0).equals("tiny") || !columns.get(1).equals("2")) {
+                return null;
+            }
+            int from = columns.indexOf("official") - 2;
+            int to = columns.indexOf("named") - 2;
+            if (from < 1 || to < 1) {
+                return null;
+            }
+
+            Map<String, String> classMappings = new HashMap<>();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith("c\t")) {
+                    String[] parts = line.split("\t", -1);
+                    if (parts.length > Math.max(from, to) && !parts[to].isEmpty()) {
+                        classMappings.put(parts[from], parts[to]);
+                    }
+                }
+            }
+            return classMappings;
+        }
+    }
+
+    /**
+     * @return the CRC of every class of the source jar by entry name, read from the central directory
+     */
+    private Map<String, Long> readClassCrcs() throws IOException {
+        Map<String, Long> classes = new LinkedHashMap<>();
+        try (ZipFile zip = new ZipFile(this.jarSource.toFile())) {
+            Enumeration<? extends ZipEntry> entries = zip.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                if (isClass(entry.getName())) {
+                    classes.put(entry.getName(), entry.getCrc());
+                }
+            }
+        }
+        return classes;
+    }
+
+    private void writeIndex(Path mappedJar, String mappingsKey, Map<String, Long> classes) {
+        Path indexFile = mappedJar.resolveSibling(mappedJar.getFileName() + INDEX_SUFFIX);
+        try (Writer writer = Files.newBufferedWriter(indexFile, StandardCharsets.UTF_8)) {
+            writer.write(mappingsKey);
+            writer.write('\n');
+            for (Map.Entry<String, Long> entry : classes.entrySet()) {
+                writer.write(Long.toHexString(entry.getValue()));
+                writer.write('\t');
+                writer.write(entry.getKey());
+                writer.write('\n');
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Cannot write mapped jar index " + indexFile.getFileName() + ", the next update will remap the whole jar", e);
+        }
+    }
+
+    /**
+     * @return the class CRCs of the source jar the given entry was remapped from, or null if it has no index or used other mappings
+     */
+    private Map<String, Long> readIndex(Path mappedJar, String mappingsKey) {
+        Path indexFile = mappedJar.resolveSibling(mappedJar.getFileName() + INDEX_SUFFIX);
+        if (!Files.exists(indexFile)) {
+            return null;
+        }
+
+        try (BufferedReader reader = Files.newBufferedReader(indexFile, StandardCharsets.UTF_8)) {
+            if (!mappingsKey.equals(reader.readLine())) {
+                return null;
+            }
+            Map<String, Long> classes = new HashMap<>();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int separator = line.indexOf('\t');
+                classes.put(line.substring(separator + 1), Long.parseLong(line.substring(0, separator), 16));
+            }
+            return classes;
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("Cannot read mapped jar index " + indexFile.getFileName(), e);
+            return null;
+        }
+    }
+
+    private String computeMappingsKey() {
+        Hasher hasher = Hashing.murmur3_128().newHasher();
+        hasher.putString(Constants.VERSION, StandardCharsets.UTF_8);
+        hasher.putBytes(this.mappings);
+        return hasher.hash().toString();
+    }
+
+    private String computeKey(String mappingsKey) throws IOException {
+        Hasher hasher = Hashing.murmur3_128().newHasher();
+        hasher.putString(mappingsKey, StandardCharsets.UTF_8);
+        try (InputStream inputStream = Files.newInputStream(this.jarSource)) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = inputStream.read(buffer)) > 0) {
+                hasher.putBytes(buffer, 0, read);
+            }
+        }
+        return hasher.hash().toString();
+    }
+
+    /**
+     * Removes older remapped versions of the same game jar and their indexes, including leftovers of interrupted remaps.
+     */
+    private void deleteStaleEntries(String prefix, Path current) {
+        String currentName = current.getFileName().toString();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(this.cacheDir, path -> path.getFileName().toString().startsWith(prefix))) {
+            for (Path entry : stream) {
+                String name = entry.getFileName().toString();
+                if (!name.equals(currentName) && !name.equals(currentName + INDEX_SUFFIX)) {
+                    try {
+                        Files.delete(entry);
+                        LOGGER.info("Deleted stale mapped jar " + entry.getFileName());
+                    } catch (IOException e) {
+                        // most likely still in use by another instance, try again next time
+                        LOGGER.warn("Cannot delete stale mapped jar " + entry.getFileName(), e);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Cannot clean up the mapped jar cache", e);
         }
-        return mappedJar;
     }
 }
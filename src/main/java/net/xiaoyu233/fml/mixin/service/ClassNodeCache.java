@@ -0,0 +1,112 @@
+package net.xiaoyu233.fml.mixin.service;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.tree.ClassNode;
+
+import java.lang.ref.SoftReference;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded cache of parsed pre-mixin class nodes, keyed by class name and reader flags.
+ *
+ * <p>Mixin asks for the same targets and super types many times while building hierarchies and resolving shadows,
+ * each request otherwise re-reading the class, re-running {@code FMLClassTransformer} and re-parsing it.
+ * Entries are held softly in LRU order, and callers always receive their own copy since Mixin mutates the nodes.
+ */
+public class ClassNodeCache {
+   private final int maxSize;
+   private final Map<Key, SoftReference<ClassNode>> nodes;
+   private final AtomicLong hits = new AtomicLong();
+   private final AtomicLong misses = new AtomicLong();
+
+   public ClassNodeCache(int maxSize) {
+      this.maxSize = maxSize;
+      this.nodes = new LinkedHashMap<>(16, 0.75F, true) {
+         @Override
+         protected boolean removeEldestEntry(Map.Entry<Key, SoftReference<ClassNode>> eldest) {
+            return this.size() > ClassNodeCache.this.maxSize;
+         }
+      };
+   }
+
+   public ClassNode get(String name, int readerFlags, BytesSupplier bytes) throws ClassNotFoundException {
+      if (this.maxSize <= 0) {
+         this.misses.incrementAndGet();
+         return read(bytes.get(), readerFlags);
+      }
+
+      Key key = new Key(name, readerFlags);
+      ClassNode cached;
+      synchronized (this.nodes) {
+         SoftReference<ClassNode> reference = this.nodes.get(key);
+         cached = reference != null ? reference.get() : null;
+      }
+
+      if (cached != null) {
+         this.hits.incrementAndGet();
+         return copy(cached);
+      }
+
+      this.misses.incrementAndGet();
+      ClassNode node = read(bytes.get(), readerFlags);
+      synchronized (this.nodes) {
+         this.nodes.put(key, new SoftReference<>(node));
+      }
+      return copy(node);
+   }
+
+   /**
+    * Drops every cached node, must be called whenever the pre-mixin bytecode of already cached classes may have changed.
+    */
+   public void invalidate() {
+      synchronized (this.nodes) {
+         this.nodes.clear();
+      }
+   }
+
+   public long getHits() {
+      return this.hits.get();
+   }
+
+   public long getMisses() {
+      return this.misses.get();
+   }
+
+   public int size() {
+      synchronized (this.nodes) {
+         return this.nodes.size();
+      }
+   }
+
+   @Override
+   public String toString() {
+      long hits = this.getHits();
+      long total = hits + this.getMisses();
+      return String.format("%d hits, %d misses (%.1f%% hit rate), %d cached nodes", hits, total - hits, total == 0 ? 0.0D : hits * 100.0D / total, this.size());
+   }
+
+   private static ClassNode read(byte[] classBytes, int readerFlags) {
+      ClassNode node = new ClassNode();
+      new ClassReader(classBytes).accept(node, readerFlags);
+      return node;
+   }
+
+   private static ClassNode copy(ClassNode node) {
+      ClassNode copy = new ClassNode();
+      // accepting resets the label state of the source instructions, so concurrent copies of one node must not overlap
+      synchronized (node) {
+         node.accept(copy);
+      }
+      return copy;
+   }
+
+   @FunctionalInterface
+   public interface BytesSupplier {
+      byte[] get() throws ClassNotFoundException;
+   }
+
+   private record Key(String name, int readerFlags) {
+   }
+}
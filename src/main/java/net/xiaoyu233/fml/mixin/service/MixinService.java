@@ -2,8 +2,8 @@ package net.xiaoyu233.fml.mixin.service;
 
 import net.fabricmc.loader.impl.util.UrlUtil;
 import net.xiaoyu233.fml.FishModLoader;
+import net.xiaoyu233.fml.config.Configs;
 import net.xiaoyu233.fml.relaunch.Launch;
-import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.tree.ClassNode;
 import org.spongepowered.asm.launch.platform.container.ContainerHandleURI;
 import org.spongepowered.asm.launch.platform.container.IContainerHandle;
@@ -31,11 +31,13 @@ import java.util.Collections;
 
 public class MixinService implements IMixinService, IClassProvider, IClassBytecodeProvider, ITransformerProvider, IClassTracker {
    static IMixinTransformer transformer;
+   static ClassNodeCache classNodeCache;
 
    private final ReEntranceLock lock;
 
    public MixinService() {
       lock = new ReEntranceLock(1);
+      classNodeCache = new ClassNodeCache(Configs.ClassLoading.CLASS_NODE_CACHE_SIZE.get());
    }
 
    @Override
@@ -52,6 +54,10 @@ public class MixinService implements IMixinService, IClassProvider, IClassByteco
       return transformer;
    }
 
+   public static ClassNodeCache getClassNodeCache() {
+      return classNodeCache;
+   }
+
    public byte[] getClassBytes(String name, String transformedName) throws IOException {
       return Launch.knotLoader.getRawClassBytes(name);
    }
@@ -78,10 +84,7 @@ public class MixinService implements IMixinService, IClassProvider, IClassByteco
 
 	@Override
 	public ClassNode getClassNode(String name, boolean runTransformers, int readerFlags) throws ClassNotFoundException, IOException {
-		ClassReader reader = new ClassReader(getClassBytes(name, runTransformers));
-		ClassNode node = new ClassNode();
-		reader.accept(node, readerFlags);
-		return node;
+		return classNodeCache.get(name, readerFlags, () -> getClassBytes(name, runTransformers));
 	}
    
    @Override
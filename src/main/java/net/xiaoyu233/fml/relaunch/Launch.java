@@ -9,23 +9,29 @@ import net.fabricmc.loader.impl.gui.FabricGuiEntry;
 import net.fabricmc.loader.impl.util.Arguments;
 import net.fabricmc.loader.impl.util.log.Log;
 import net.fabricmc.loader.impl.util.log.LogCategory;
-import net.fabricmc.tinyremapper.IMappingProvider;
-import net.fabricmc.tinyremapper.TinyUtils;
 import net.xiaoyu233.fml.FishModLoader;
+import net.xiaoyu233.fml.StartupMetrics;
+import net.xiaoyu233.fml.classloading.ClassLoadingProfiler;
 import net.xiaoyu233.fml.classloading.KnotClassLoaderInterface;
+import net.xiaoyu233.fml.config.Configs;
+import net.xiaoyu233.fml.mapping.BinaryMappings;
 import net.xiaoyu233.fml.mapping.CachedMappedJar;
+import net.xiaoyu233.fml.mixin.service.MixinService;
 import net.xiaoyu233.fml.util.EnumExtends;
 import net.xiaoyu233.fml.util.LogProxy;
 import org.spongepowered.asm.launch.MixinBootstrap;
 import org.spongepowered.asm.launch.platform.MixinPlatformManager;
 import org.spongepowered.asm.mixin.MixinEnvironment;
+import org.spongepowered.asm.mixin.transformer.Config;
 
 import java.io.*;
 import java.lang.reflect.InvocationTargetException;
 import java.nio.file.Path;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 
 public class Launch {
    public static Map<String, Object> blackboard = new HashMap<>();
@@ -41,20 +47,29 @@ public class Launch {
       arguments.parse(args);
       FishModLoader.setIsServer(server);
       seekGameDir(args);
+      //Scan the mods while the game jar is remapped
+      FishModLoader.startModDiscovery();
       //Use parent to prevent preloading
       Path remappedGameJarPath;
+      long remapStart = StartupMetrics.begin();
       try {
-         IMappingProvider tinyMappingProvider = TinyUtils.createTinyMappingProvider(new BufferedReader(new InputStreamReader(Objects.requireNonNull(Launch.class.getResourceAsStream("/mappings.tiny")))), "official", "named");
-         CachedMappedJar cachedMappedJar = new CachedMappedJar(gameJarPath, tinyMappingProvider, new File(minecraftHome));
+         byte[] mappings;
+         try (InputStream mappingsStream = Objects.requireNonNull(Launch.class.getResourceAsStream("/mappings.tiny"))) {
+            mappings = mappingsStream.readAllBytes();
+         }
+         Path mappingsCache = Path.of(minecraftHome, ".fml", "mappings");
+         CachedMappedJar cachedMappedJar = new CachedMappedJar(gameJarPath, () -> BinaryMappings.open("mappings", mappings, "official", "named", mappingsCache), mappings, new File(minecraftHome));
          remappedGameJarPath = cachedMappedJar.ensureJarMapped();
          knotInterface.addCodeSource(remappedGameJarPath);
       }catch (Exception e){
          throw new RuntimeException("Cannot remap minecraft jar", e);
       }
+      StartupMetrics.end(StartupMetrics.REMAP, remapStart);
 
       ClassLoader knotLoader = knotInterface.getClassLoader();
       Thread.currentThread().setContextClassLoader(knotLoader);
       FishModLoader.setup(remappedGameJarPath);
+      ClassLoadingProfiler.setEnabled(Configs.Debug.PROFILE_CLASS_LOADING.get());
       onEnvironmentChanged();
       FishModLoader.freeze();
       FishModLoader.loadAccessWideners();
@@ -73,9 +88,18 @@ public class Launch {
             FishModLoader.invokeEntrypoints("preLaunch", PreLaunchEntrypoint.class, PreLaunchEntrypoint::onPreLaunch);
             EnumExtends.buildEnumExtending();
             asmTransformer.buildAndInitializeTransformer(knotInterface::addUrl);
+            // ClassTinkerers may now change the pre-mixin bytecode of classes Mixin has already read
+            MixinService.getClassNodeCache().invalidate();
+            if (Configs.ClassLoading.TRANSFORM_CACHE.get() && !Configs.Debug.DEBUG.get() && !FishModLoader.isDevelopmentEnvironment()) {
+               knotInterface.initializeTransformCache(Path.of(minecraftHome, ".fml", "transformCache"));
+            }
+            if (Configs.ClassLoading.PREWARM.get()) {
+               knotInterface.prewarmClasses(getTransformationTargets());
+            }
          } catch (RuntimeException e) {
             throw FormattedException.ofLocalized("exception.initializerFailure", e);
          }
+         FishModLoader.LOGGER.info("Mixin class node cache: {}", MixinService.getClassNodeCache());
          knotLoader.loadClass(mainClass).getMethod("main", String[].class).invoke(null, (Object) args);
       } catch (IllegalAccessException | InvocationTargetException | NoSuchMethodException | ClassNotFoundException e) {
          FishModLoader.LOGGER.error("Cannot launch minecraft", e);
@@ -117,6 +141,14 @@ public class Launch {
       });
    }
 
+   private static Set<String> getTransformationTargets() {
+      Set<String> targets = new HashSet<>(FishModLoader.getAccessWidener().getTargets());
+      for (Config config : FishModLoader.getMixinConfigs()) {
+         targets.addAll(config.getConfig().getTargets());
+      }
+      return targets;
+   }
+
    public static void onEnvironmentChanged(){
       MixinEnvironment currentEnvironment = MixinEnvironment.getCurrentEnvironment();
       currentEnvironment.setSide(FishModLoader.getSide());
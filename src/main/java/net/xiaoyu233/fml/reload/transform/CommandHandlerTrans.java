@@ -3,6 +3,7 @@ package net.xiaoyu233.fml.reload.transform;
 import net.minecraft.*;
 import net.minecraft.server.MinecraftServer;
 import net.xiaoyu233.fml.FishModLoader;
+import net.xiaoyu233.fml.StartupMetrics;
 import net.xiaoyu233.fml.config.editor.ConfigEditor;
 import net.xiaoyu233.fml.reload.event.HandleChatCommandEvent;
 import net.xiaoyu233.fml.reload.event.MITEEvents;
@@ -12,6 +13,8 @@ import org.spongepowered.asm.mixin.injection.Inject;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
 import org.spongepowered.asm.mixin.injection.callback.LocalCapture;
 
+import java.io.IOException;
+
 @Mixin(CommandHandler.class)
 public class CommandHandlerTrans {
 
@@ -62,6 +65,40 @@ public class CommandHandlerTrans {
             }
             callbackInfo.setReturnValue(1);
         }
+        if (par2Str.startsWith("fml stats")){
+            if (mc_server instanceof IntegratedServer && (mc_server.getConfigurationManager()
+                    .getCurrentPlayerCount() > 1) &&
+                    //Is remote player
+                    !(Minecraft.getClientPlayer().getEntityName().equals(player.getEntityName()))) {
+                player.sendChatToPlayer(ChatMessageComponent.createFromText("你不是局域网主机,无法查看启动数据").setColor(EnumChatFormatting.RED));
+                callbackInfo.setReturnValue(-1);
+                return;
+            }else if (mc_server.isDedicatedServer() &&
+                    //Not server console
+                    player != null){
+                player.sendChatToPlayer(ChatMessageComponent.createFromText("你不是服务器控制台,无法查看启动数据").setColor(EnumChatFormatting.RED));
+                callbackInfo.setReturnValue(-1);
+                return;
+            }
+            String text;
+            if (par2Str.startsWith("fml stats dump")) {
+                try {
+                    text = "启动数据已写入 " + StartupMetrics.dump();
+                } catch (IOException e) {
+                    text = "无法写入启动数据: " + e;
+                }
+            } else {
+                text = StartupMetrics.summarize();
+            }
+            for (String line : text.split("\\R")) {
+                if (player != null) {
+                    player.sendChatToPlayer(ChatMessageComponent.createFromText(line));
+                } else {
+                    System.out.println(line);
+                }
+            }
+            callbackInfo.setReturnValue(1);
+        }
     }
 
 //    public int executeCommand(ICommandListener par1ICommandSender, String par2Str, boolean permission_override) {}
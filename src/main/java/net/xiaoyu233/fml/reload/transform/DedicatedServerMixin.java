@@ -2,12 +2,16 @@ package net.xiaoyu233.fml.reload.transform;
 
 import net.minecraft.DedicatedServer;
 import net.minecraft.ServerPlayer;
+import net.xiaoyu233.fml.StartupMetrics;
+import net.xiaoyu233.fml.classloading.ClassLoadingProfiler;
+import net.xiaoyu233.fml.relaunch.Launch;
 import net.xiaoyu233.fml.reload.event.MITEEvents;
 import net.xiaoyu233.fml.reload.event.PlayerLoggedInEvent;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Inject;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
 
 @Mixin(DedicatedServer.class)
 public class DedicatedServerMixin {
@@ -15,4 +19,11 @@ public class DedicatedServerMixin {
     private void onPlayerLoggedIn(ServerPlayer par1EntityPlayerMP, CallbackInfo callbackInfo) {
         MITEEvents.MITE_EVENT_BUS.post(new PlayerLoggedInEvent(par1EntityPlayerMP));
     }
+
+    @Inject(method = "startServer", at = @At("RETURN"))
+    private void onServerStarted(CallbackInfoReturnable<Boolean> callbackInfo) {
+        ClassLoadingProfiler.finish("server start");
+        Launch.knotLoader.clearPrewarmedClasses();
+        StartupMetrics.finish("server start");
+    }
 }
@@ -2,6 +2,9 @@ package net.xiaoyu233.fml.reload.transform.client;
 
 import net.minecraft.GuiMainMenu;
 import net.minecraft.GuiScreen;
+import net.xiaoyu233.fml.StartupMetrics;
+import net.xiaoyu233.fml.classloading.ClassLoadingProfiler;
+import net.xiaoyu233.fml.relaunch.Launch;
 import net.xiaoyu233.fml.util.Constants;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.injection.At;
@@ -14,4 +17,11 @@ public abstract class MainMenuMixin extends GuiScreen {
     private void injectRenderFMLVersion(CallbackInfo callbackInfo){
         this.drawString(this.fontRenderer, "FishModLoader Version: " + Constants.VERSION, 2, this.height - 20, 0xFFFFFF);
     }
+
+    @Inject(method = "initGui", at = @At("HEAD"))
+    private void onInitGui(CallbackInfo callbackInfo){
+        ClassLoadingProfiler.finish("main menu");
+        Launch.knotLoader.clearPrewarmedClasses();
+        StartupMetrics.finish("main menu");
+    }
 }
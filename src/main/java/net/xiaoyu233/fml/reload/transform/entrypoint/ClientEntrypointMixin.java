@@ -4,6 +4,7 @@ import net.fabricmc.api.ClientModInitializer;
 import net.fabricmc.api.ModInitializer;
 import net.minecraft.client.main.Main;
 import net.xiaoyu233.fml.FishModLoader;
+import net.xiaoyu233.fml.config.ConfigSnapshot;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Inject;
@@ -20,6 +21,7 @@ public class ClientEntrypointMixin {
             });
             modInitializer.onInitialize();
         });
+        ConfigSnapshot.finishPrefetch();
         FishModLoader.invokeEntrypoints("client", ClientModInitializer.class, ClientModInitializer::onInitializeClient);
     }
 }
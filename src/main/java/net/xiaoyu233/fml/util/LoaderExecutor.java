@@ -0,0 +1,25 @@
+package net.xiaoyu233.fml.util;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+
+/**
+ * Shared pool for the loader's own background work during startup, such as mod discovery, so each stage does not
+ * spin up and tear down its own threads. The threads are daemons and never outlive the game.
+ */
+public final class LoaderExecutor {
+    private static final ForkJoinPool POOL = new ForkJoinPool(Math.max(1, Runtime.getRuntime().availableProcessors()), pool -> {
+        ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+        thread.setName("FML Worker " + thread.getPoolIndex());
+        thread.setDaemon(true);
+        return thread;
+    }, null, false);
+
+    private LoaderExecutor() {
+    }
+
+    public static ExecutorService get() {
+        return POOL;
+    }
+}
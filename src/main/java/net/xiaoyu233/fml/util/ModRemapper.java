@@ -1,24 +1,56 @@
 package net.xiaoyu233.fml.util;
 
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import net.fabricmc.tinyremapper.IMappingProvider;
+import net.fabricmc.tinyremapper.InputTag;
 import net.fabricmc.tinyremapper.NonClassCopyMode;
 import net.fabricmc.tinyremapper.OutputConsumerPath;
 import net.fabricmc.tinyremapper.TinyRemapper;
-import net.fabricmc.tinyremapper.TinyUtils;
 import net.fabricmc.tinyremapper.extension.mixin.MixinExtension;
 import net.xiaoyu233.fml.FishModLoader;
+import net.xiaoyu233.fml.mapping.BinaryMappings;
 
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Objects;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 public class ModRemapper {
+    private static final int THREADS = Math.max(1, Integer.getInteger("fml.remapThreads", Runtime.getRuntime().availableProcessors()));
+    // output file name -> hash of the inputs it was remapped from, lets batch runs skip jars that did not change
+    private static final String HASHES_FILE = ".remapHashes.properties";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
     public static void main(String[] args) throws IOException {
-       if (args.length != 3){
+       if (args.length >= 4 && args[0].equals("--batch")) {
+           runBatch(Path.of(args[1]), Path.of(args[2]), collectInputs(args, 3));
+       }else if (args.length != 3){
            System.out.println("ModRemapper Usage: ModRemapper <InputModJar> <OutputModJar> <ReferenceClassesPath>");
+           System.out.println("               or: ModRemapper --batch <OutputDirectory> <ReferenceClassesPath> <InputModJar|InputDirectory|@InputListFile>...");
            System.out.println("For <ReferenceClassesPath>, you should input the path to directory that contains the classes dumped from FishModLoader v1.5.0 without any mods");
+           System.out.println("In batch mode the mappings and reference classes are read once, jars are remapped together and unchanged outputs are skipped");
        }else {
            File input = new File(args[0]);
            if (!input.exists()){
@@ -31,13 +63,7 @@ public class ModRemapper {
                 System.exit(-1);
             }
 
-           TinyRemapper remapper = TinyRemapper.newRemapper()
-                   .checkPackageAccess(true)
-                   .ignoreConflicts(true)
-                   .extension(new MixinExtension())
-                   .fixPackageAccess(true)
-                   .withMappings(TinyUtils.createTinyMappingProvider(new BufferedReader(new InputStreamReader(Objects.requireNonNull(ModRemapper.class.getResourceAsStream("/migrate.tiny")))), "left", "right"))
-                   .build();
+           TinyRemapper remapper = createRemapper(openMappings(readMigrateMappings()), THREADS);
 
            FishModLoader.LOGGER.info("Remapping mod jar with TinyRemapper on FML version " + FishModLoader.VERSION);
            Path outPath = new File(args[1]).toPath();
@@ -56,4 +82,371 @@ public class ModRemapper {
        }
     }
 
+    private static byte[] readMigrateMappings() throws IOException {
+        try (InputStream inputStream = Objects.requireNonNull(ModRemapper.class.getResourceAsStream("/migrate.tiny"))) {
+            return inputStream.readAllBytes();
+        }
+    }
+
+    private static IMappingProvider openMappings(byte[] mappings) {
+        return BinaryMappings.open("migrate", mappings, "left", "right", Path.of(System.getProperty("java.io.tmpdir"), "fml-mappings"));
+    }
+
+    private static TinyRemapper createRemapper(IMappingProvider mappings, int threads) {
+        return TinyRemapper.newRemapper()
+                .checkPackageAccess(true)
+                .ignoreConflicts(true)
+                .extension(new MixinExtension())
+                .fixPackageAccess(true)
+                .threads(threads)
+                .withMappings(mappings)
+                .build();
+    }
+
+    /**
+     * @return a provider that can be loaded into any number of remappers, the text fallback of
+     * {@link BinaryMappings} reads its source only once so its mappings are recorded on the first load
+     */
+    private static IMappingProvider shareMappings(IMappingProvider mappings) {
+        if (mappings instanceof BinaryMappings) {
+            return mappings;
+        }
+        List<Consumer<IMappingProvider.MappingAcceptor>> records = new ArrayList<>();
+        mappings.load(new IMappingProvider.MappingAcceptor() {
+            @Override
+            public void acceptClass(String srcName, String dstName) {
+                records.add(out -> out.acceptClass(srcName, dstName));
+            }
+
+            @Override
+            public void acceptMethod(IMappingProvider.Member method, String dstName) {
+                records.add(out -> out.acceptMethod(method, dstName));
+            }
+
+            @Override
+            public void acceptMethodArg(IMappingProvider.Member method, int lvIndex, String dstName) {
+                records.add(out -> out.acceptMethodArg(method, lvIndex, dstName));
+            }
+
+            @Override
+            public void acceptMethodVar(IMappingProvider.Member method, int lvIndex, int startOpIdx, int asmIndex, String dstName) {
+                records.add(out -> out.acceptMethodVar(method, lvIndex, startOpIdx, asmIndex, dstName));
+            }
+
+            @Override
+            public void acceptField(IMappingProvider.Member field, String dstName) {
+                records.add(out -> out.acceptField(field, dstName));
+            }
+        });
+        return out -> records.forEach(record -> record.accept(out));
+    }
+
+    /**
+     * Expands the input arguments of the batch mode: directories stand for the jars directly inside them and
+     * {@code @file} for the jars listed in that file, one path per line.
+     */
+    private static List<Path> collectInputs(String[] args, int from) throws IOException {
+        List<Path> inputs = new ArrayList<>();
+        for (int i = from; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.startsWith("@")) {
+                for (String line : Files.readAllLines(Path.of(arg.substring(1)), StandardCharsets.UTF_8)) {
+                    line = line.trim();
+                    if (!line.isEmpty() && !line.startsWith("#")) {
+                        inputs.add(Path.of(line));
+                    }
+                }
+            } else if (Files.isDirectory(Path.of(arg))) {
+                try (DirectoryStream<Path> stream = Files.newDirectoryStream(Path.of(arg), "*.jar")) {
+                    List<Path> jars = new ArrayList<>();
+                    stream.forEach(jars::add);
+                    jars.sort(null);
+                    inputs.addAll(jars);
+                }
+            } else {
+                inputs.add(Path.of(arg));
+            }
+        }
+        return inputs;
+    }
+
+    private static void runBatch(Path outputDir, Path refClassPath, List<Path> inputs) throws IOException {
+        if (!Files.exists(refClassPath)) {
+            System.err.println("Invalid reference class path: " + refClassPath);
+            System.exit(-1);
+        }
+
+        long start = System.nanoTime();
+        Files.createDirectories(outputDir);
+        List<Job> jobs = new ArrayList<>();
+        Set<String> outputNames = new HashSet<>();
+        for (Path input : inputs) {
+            Job job = new Job(input, outputDir.resolve(input.getFileName().toString()));
+            if (!Files.isRegularFile(input)) {
+                job.fail("input jar does not exist");
+            } else if (!outputNames.add(job.output.getFileName().toString())) {
+                job.fail("another input has the same file name");
+            }
+            jobs.add(job);
+        }
+
+        byte[] mappings = readMigrateMappings();
+        String baseKey = computeBaseKey(mappings, refClassPath);
+        Path hashesFile = outputDir.resolve(HASHES_FILE);
+        Properties hashes = new Properties();
+        if (Files.exists(hashesFile)) {
+            try (Reader reader = Files.newBufferedReader(hashesFile, StandardCharsets.UTF_8)) {
+                hashes.load(reader);
+            }
+        }
+
+        FishModLoader.LOGGER.info("Batch remapping " + jobs.size() + " mod jars with TinyRemapper on FML version " + FishModLoader.VERSION + " using " + THREADS + " threads");
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Job> pending = new ArrayList<>();
+            CompletableFuture.allOf(jobs.stream()
+                    .filter(job -> job.status == null)
+                    .map(job -> CompletableFuture.runAsync(() -> job.hash(baseKey), executor))
+                    .toArray(CompletableFuture[]::new)).join();
+            for (Job job : jobs) {
+                if (job.status != null) {
+                    continue;
+                }
+                if (Files.exists(job.output) && job.key.equals(hashes.getProperty(job.output.getFileName().toString()))) {
+                    job.status = Status.SKIPPED;
+                } else {
+                    pending.add(job);
+                }
+            }
+
+            // the reference class path is only read if at least one jar has to be remapped
+            if (!pending.isEmpty()) {
+                CompletableFuture.allOf(pending.stream()
+                        .map(job -> CompletableFuture.runAsync(job::listClasses, executor))
+                        .toArray(CompletableFuture[]::new)).join();
+                IMappingProvider mappingProvider = shareMappings(openMappings(mappings));
+                for (List<Job> group : groupByClasses(pending)) {
+                    remapGroup(group, mappingProvider, refClassPath);
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        for (Job job : jobs) {
+            if (job.status == Status.REMAPPED) {
+                hashes.setProperty(job.output.getFileName().toString(), job.key);
+            } else if (job.status == Status.FAILED && job.key != null) {
+                hashes.remove(job.output.getFileName().toString());
+            }
+        }
+        try (Writer writer = Files.newBufferedWriter(hashesFile, StandardCharsets.UTF_8)) {
+            hashes.store(writer, "ModRemapper input hashes, delete to remap every jar again");
+        }
+
+        FishModLoader.LOGGER.info(report(jobs, System.nanoTime() - start));
+        if (jobs.stream().anyMatch(job -> job.status == Status.FAILED)) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Splits the jars so that no two jars of a group contain a class of the same name, classes shaded into several jars
+     * would otherwise overwrite each other in a shared remapper. Usually every jar ends up in the first group.
+     */
+    private static List<List<Job>> groupByClasses(List<Job> jobs) {
+        List<List<Job>> groups = new ArrayList<>();
+        List<Set<String>> groupClasses = new ArrayList<>();
+        for (Job job : jobs) {
+            if (job.status != null) {
+                continue;
+            }
+            int i = 0;
+            while (i < groups.size() && !Collections.disjoint(groupClasses.get(i), job.classes)) {
+                i++;
+            }
+            if (i == groups.size()) {
+                groups.add(new ArrayList<>());
+                groupClasses.add(new HashSet<>());
+            }
+            groups.get(i).add(job);
+            groupClasses.get(i).addAll(job.classes);
+        }
+        if (groups.size() > 1) {
+            FishModLoader.LOGGER.info("Mod jars share class names, remapping them in " + groups.size() + " groups");
+        }
+        return groups;
+    }
+
+    /**
+     * Remaps the jars with one remapper that reads the reference class path once, the classes of each jar are tagged
+     * so its output only receives its own. Outputs are written one after another, TinyRemapper spreads the work of each
+     * over its own threads. If any jar fails, the remapper may be left inconsistent, so the jars of a larger group that
+     * failed are remapped again on their own.
+     */
+    private static void remapGroup(List<Job> group, IMappingProvider mappings, Path refClassPath) {
+        TinyRemapper remapper = createRemapper(mappings, THREADS);
+        try {
+            CompletableFuture<?> classPath = remapper.readClassPathAsync(refClassPath);
+            for (Job job : group) {
+                job.read(remapper);
+            }
+            classPath.join();
+            for (Job job : group) {
+                job.remap(remapper);
+            }
+        } catch (RuntimeException e) {
+            FishModLoader.LOGGER.error("Cannot read the reference class path " + refClassPath, e);
+            for (Job job : group) {
+                if (job.status == null) {
+                    job.fail(String.valueOf(e));
+                }
+            }
+            return;
+        } finally {
+            remapper.finish();
+        }
+
+        if (group.size() > 1) {
+            for (Job job : group) {
+                if (job.status == Status.FAILED) {
+                    FishModLoader.LOGGER.info("Remapping " + job.input + " again on its own");
+                    job.status = null;
+                    job.error = null;
+                    remapGroup(List.of(job), mappings, refClassPath);
+                }
+            }
+        }
+    }
+
+    /**
+     * Hashes everything shared by all jars of a batch: the loader version, the mappings and the name, size and
+     * modification time of every reference class path file.
+     */
+    private static String computeBaseKey(byte[] mappings, Path refClassPath) throws IOException {
+        Hasher hasher = Hashing.murmur3_128().newHasher();
+        hasher.putString(FishModLoader.VERSION, StandardCharsets.UTF_8);
+        hasher.putBytes(mappings);
+        try (Stream<Path> files = Files.walk(refClassPath)) {
+            for (Path file : files.filter(Files::isRegularFile).sorted().toList()) {
+                hasher.putString(refClassPath.relativize(file).toString(), StandardCharsets.UTF_8);
+                hasher.putLong(Files.size(file));
+                hasher.putLong(Files.getLastModifiedTime(file).toMillis());
+            }
+        }
+        return hasher.hash().toString();
+    }
+
+    private static String report(Iterable<Job> jobs, long elapsed) {
+        int[] counts = new int[Status.values().length];
+        StringBuilder rows = new StringBuilder();
+        for (Job job : jobs) {
+            counts[job.status.ordinal()]++;
+            rows.append(String.format("  %-9s %10.1f %10.1f %10.1f  %s%s%n", job.status, job.hashNanos / 1e6D, job.readNanos / 1e6D, job.remapNanos / 1e6D,
+                    job.input, job.error != null ? " (" + job.error + ")" : ""));
+        }
+
+        StringBuilder builder = new StringBuilder("ModRemapper batch report (");
+        for (Status status : Status.values()) {
+            builder.append(counts[status.ordinal()]).append(' ').append(status.name().toLowerCase()).append(", ");
+        }
+        builder.append(String.format("%.1f ms in total):%n", elapsed / 1e6D));
+        builder.append(String.format("  %-9s %10s %10s %10s  %s%n", "Status", "Hash (ms)", "Read (ms)", "Remap (ms)", "Jar"));
+        return builder.append(rows).toString();
+    }
+
+    private enum Status {
+        REMAPPED,
+        SKIPPED,
+        FAILED
+    }
+
+    private static final class Job {
+        private final Path input;
+        private final Path output;
+        private volatile Status status;
+        private volatile String error;
+        private volatile String key;
+        private Set<String> classes = Collections.emptySet();
+        private InputTag tag;
+        private CompletableFuture<?> inputRead;
+        private volatile long hashNanos;
+        private volatile long readNanos;
+        private volatile long remapNanos;
+
+        private Job(Path input, Path output) {
+            this.input = input;
+            this.output = output;
+        }
+
+        private void fail(String error) {
+            this.status = Status.FAILED;
+            this.error = error;
+        }
+
+        private void hash(String baseKey) {
+            long start = System.nanoTime();
+            Hasher hasher = Hashing.murmur3_128().newHasher();
+            hasher.putString(baseKey, StandardCharsets.UTF_8);
+            try (InputStream inputStream = Files.newInputStream(this.input)) {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                int read;
+                while ((read = inputStream.read(buffer)) > 0) {
+                    hasher.putBytes(buffer, 0, read);
+                }
+                this.key = hasher.hash().toString();
+            } catch (IOException e) {
+                this.fail("cannot read input: " + e);
+            }
+            this.hashNanos = System.nanoTime() - start;
+        }
+
+        private void listClasses() {
+            Set<String> classes = new HashSet<>();
+            try (ZipFile zip = new ZipFile(this.input.toFile())) {
+                Enumeration<? extends ZipEntry> entries = zip.entries();
+                while (entries.hasMoreElements()) {
+                    String name = entries.nextElement().getName();
+                    if (name.endsWith(".class")) {
+                        classes.add(name);
+                    }
+                }
+                this.classes = classes;
+            } catch (IOException e) {
+                this.fail("cannot read input: " + e);
+            }
+        }
+
+        /**
+         * Queues the jar for reading on the remapper threads, its classes are tagged so each output only receives its own.
+         */
+        private void read(TinyRemapper remapper) {
+            long start = System.nanoTime();
+            this.tag = remapper.createInputTag();
+            this.inputRead = remapper.readInputsAsync(this.tag, this.input).whenComplete((result, throwable) -> this.readNanos = System.nanoTime() - start);
+        }
+
+        private void remap(TinyRemapper remapper) {
+            long start = System.nanoTime();
+            Path tempOutput = this.output.resolveSibling(this.output.getFileName() + ".tmp");
+            try {
+                this.inputRead.join();
+                Files.deleteIfExists(tempOutput);
+                try (OutputConsumerPath outputConsumer = new OutputConsumerPath.Builder(tempOutput).threadSyncWrites(true).build()) {
+                    outputConsumer.addNonClassFiles(this.input, NonClassCopyMode.UNCHANGED, remapper);
+                    remapper.apply(outputConsumer, this.tag);
+                }
+                Files.move(tempOutput, this.output, StandardCopyOption.REPLACE_EXISTING);
+                this.status = Status.REMAPPED;
+            } catch (IOException | RuntimeException e) {
+                FishModLoader.LOGGER.error("Cannot remap mod jar " + this.input, e);
+                this.fail(String.valueOf(e));
+                try {
+                    Files.deleteIfExists(tempOutput);
+                } catch (IOException ignored) {
+                }
+            }
+            this.remapNanos = System.nanoTime() - start;
+        }
+    }
 }
@@ -0,0 +1,112 @@
+package net.xiaoyu233.fml.util;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Set of string prefixes that answers {@link #matches} with a single pass over the tested string.
+ *
+ * <p>The prefixes are compiled into an immutable trie which is rebuilt whenever they change. Changes are rare
+ * (class loader setup), lookups happen for every loaded class, so lookups never lock or allocate.
+ */
+public final class PrefixMatcher {
+    private final Set<String> prefixes = new LinkedHashSet<>();
+    private volatile Node root = Node.EMPTY;
+
+    public synchronized void add(String prefix) {
+        if (this.prefixes.add(prefix)) {
+            this.root = Node.compile(this.prefixes);
+        }
+    }
+
+    public synchronized void clear() {
+        this.prefixes.clear();
+        this.root = Node.EMPTY;
+    }
+
+    /**
+     * @return whether the string starts with any of the prefixes
+     */
+    public boolean matches(String string) {
+        Node node = this.root;
+        if (node.terminal) {
+            return true;
+        }
+
+        for (int i = 0, length = string.length(); i < length; i++) {
+            node = node.child(string.charAt(i));
+            if (node == null) {
+                return false;
+            }
+            if (node.terminal) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static final class Node {
+        static final Node EMPTY = new Node(new char[0], new Node[0], false);
+
+        private final char[] keys;
+        private final Node[] children;
+        private final boolean terminal;
+
+        private Node(char[] keys, Node[] children, boolean terminal) {
+            this.keys = keys;
+            this.children = children;
+            this.terminal = terminal;
+        }
+
+        Node child(char key) {
+            char[] keys = this.keys;
+            int low = 0;
+            int high = keys.length - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                char midKey = keys[mid];
+                if (midKey < key) {
+                    low = mid + 1;
+                } else if (midKey > key) {
+                    high = mid - 1;
+                } else {
+                    return this.children[mid];
+                }
+            }
+            return null;
+        }
+
+        static Node compile(Collection<String> prefixes) {
+            Builder root = new Builder();
+            for (String prefix : prefixes) {
+                Builder node = root;
+                for (int i = 0; i < prefix.length() && !node.terminal; i++) {
+                    node = node.children.computeIfAbsent(prefix.charAt(i), key -> new Builder());
+                }
+                node.terminal = true;
+                // anything below a terminal node is shadowed by the shorter prefix
+                node.children.clear();
+            }
+            return root.build();
+        }
+    }
+
+    private static final class Builder {
+        private final TreeMap<Character, Builder> children = new TreeMap<>();
+        private boolean terminal;
+
+        Node build() {
+            char[] keys = new char[this.children.size()];
+            Node[] nodes = new Node[keys.length];
+            int i = 0;
+            for (Map.Entry<Character, Builder> entry : this.children.entrySet()) {
+                keys[i] = entry.getKey();
+                nodes[i++] = entry.getValue().build();
+            }
+            return new Node(keys, nodes, this.terminal);
+        }
+    }
+}
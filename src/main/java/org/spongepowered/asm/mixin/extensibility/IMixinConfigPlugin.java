@@ -104,6 +104,11 @@ public interface IMixinConfigPlugin {
      * Called immediately <b>before</b> a mixin is applied to a target class,
      * allows any pre-application transformations to be applied.
      * 
+     * <p>Mixins are applied to different target classes concurrently, so this
+     * method and {@link #postApply} may be called from several threads. Calls
+     * to one plugin instance are serialized, the plugin sees one apply callback
+     * at a time, but state it shares with other code must be thread-safe.</p>
+     * 
      * @param targetClassName Transformed name of the target class
      * @param targetClass Target class tree
      * @param mixinClassName Name of the mixin class
@@ -113,7 +118,8 @@ public interface IMixinConfigPlugin {
 
     /**
      * Called immediately <b>after</b> a mixin is applied to a target class,
-     * allows any post-application transformations to be applied.
+     * allows any post-application transformations to be applied. See
+     * {@link #preApply} for the threading contract.
      * 
      * @param targetClassName Transformed name of the target class
      * @param targetClass Target class tree
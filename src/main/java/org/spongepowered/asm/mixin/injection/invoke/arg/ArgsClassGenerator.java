@@ -171,7 +171,7 @@ public final class ArgsClassGenerator implements IClassGenerator {
      *      debugging only anyway
      * @return name of the Args subclass to use
      */
-    public ISyntheticClassInfo getArgsClass(String desc, IMixinInfo mixin) {
+    public synchronized ISyntheticClassInfo getArgsClass(String desc, IMixinInfo mixin) {
         String voidDesc = Bytecode.changeDescriptorReturnType(desc, "V");
         ArgsClassInfo info = this.descToClass.get(voidDesc);
         if (info == null) {
@@ -190,7 +190,7 @@ public final class ArgsClassGenerator implements IClassGenerator {
      *      #generate(java.lang.String, org.objectweb.asm.tree.ClassNode)
      */
     @Override
-    public boolean generate(String name, ClassNode classNode) {
+    public synchronized boolean generate(String name, ClassNode classNode) {
         ArgsClassInfo info = this.nameToClass.get(name);
         if (info == null) {
             return false;
@@ -35,6 +35,7 @@ import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.spongepowered.asm.logging.Level;
 import org.spongepowered.asm.logging.ILogger;
@@ -680,9 +681,10 @@ public final class ClassInfo {
 
     /**
      * Loading and parsing classes is expensive, so keep a cache of all the
-     * information we generate
+     * information we generate. Failed lookups are cached as null, so this is a
+     * synchronized map rather than a concurrent one, see {@link #cache}.
      */
-    private static final Map<String, ClassInfo> cache = new HashMap<String, ClassInfo>();
+    private static final Map<String, ClassInfo> cache = Collections.synchronizedMap(new HashMap<String, ClassInfo>());
 
     private static final ClassInfo OBJECT = new ClassInfo();
 
@@ -745,7 +747,7 @@ public final class ClassInfo {
      * Map of mixin types to corresponding supertypes, to avoid repeated
      * lookups
      */
-    private final Map<ClassInfo, ClassInfo> correspondingTypes = new HashMap<ClassInfo, ClassInfo>();
+    private final Map<ClassInfo, ClassInfo> correspondingTypes = Collections.synchronizedMap(new HashMap<ClassInfo, ClassInfo>());
 
     /**
      * Mixin info if this class is a mixin itself
@@ -787,7 +789,7 @@ public final class ClassInfo {
     /**
      * Mixins which have been applied this class
      */
-    private Set<MixinInfo> appliedMixins;
+    private volatile Set<MixinInfo> appliedMixins;
     
     /**
      * Declared nest host
@@ -844,14 +846,14 @@ public final class ClassInfo {
         try {
             this.name = classNode.name;
             this.superName = classNode.superName != null ? classNode.superName : ClassInfo.JAVA_LANG_OBJECT;
-            this.initialisers = new HashSet<Method>();
-            this.methods = new HashSet<Method>();
-            this.fields = new HashSet<Field>();
+            this.initialisers = ConcurrentHashMap.<Method>newKeySet();
+            this.methods = ConcurrentHashMap.<Method>newKeySet();
+            this.fields = ConcurrentHashMap.<Field>newKeySet();
             this.isInterface = ((classNode.access & Opcodes.ACC_INTERFACE) != 0);
-            this.interfaces = new HashSet<String>();
+            this.interfaces = ConcurrentHashMap.<String>newKeySet();
             this.isMixin = classNode instanceof MixinClassNode;
             this.mixin = this.isMixin ? ((MixinClassNode)classNode).getMixin() : null;
-            this.mixins = this.isMixin ? Collections.<MixinInfo>emptySet() : new HashSet<MixinInfo>();
+            this.mixins = this.isMixin ? Collections.<MixinInfo>emptySet() : ConcurrentHashMap.<MixinInfo>newKeySet();
 
             this.interfaces.addAll(classNode.interfaces);
 
@@ -912,12 +914,12 @@ public final class ClassInfo {
     private ClassInfo(Class<?> cls) {
         this.name = getName(cls);
         this.superName = cls.getSuperclass() != null ? getName(cls.getSuperclass()) : ClassInfo.JAVA_LANG_OBJECT;
-        this.initialisers = new HashSet<Method>();
-        this.methods = new HashSet<Method>();
-        this.fields = new HashSet<Field>();
+        this.initialisers = ConcurrentHashMap.<Method>newKeySet();
+        this.methods = ConcurrentHashMap.<Method>newKeySet();
+        this.fields = ConcurrentHashMap.<Field>newKeySet();
         this.isInterface = cls.isInterface();
         Class<?>[] interfaces = cls.getInterfaces();
-        this.interfaces = new HashSet<String>(interfaces.length);
+        this.interfaces = ConcurrentHashMap.<String>newKeySet(interfaces.length);
         this.isMixin = false;
         this.mixin = null;
         this.mixins = Collections.emptySet();
@@ -992,9 +994,9 @@ public final class ClassInfo {
     /**
      * Add a mixin which has been applied to this class
      */
-    void addAppliedMixin(MixinInfo mixin) {
+    synchronized void addAppliedMixin(MixinInfo mixin) {
         if (this.appliedMixins == null) {
-            this.appliedMixins = new HashSet<MixinInfo>(); 
+            this.appliedMixins = ConcurrentHashMap.<MixinInfo>newKeySet(); 
         }
         this.appliedMixins.add(mixin);
     }
@@ -2074,12 +2076,31 @@ public final class ClassInfo {
     static ClassInfo fromClassNode(ClassNode classNode) {
         ClassInfo info = ClassInfo.cache.get(classNode.name);
         if (info == null) {
-            info = new ClassInfo(classNode);
-            ClassInfo.cache.put(classNode.name, info);
+            info = ClassInfo.cache(classNode.name, new ClassInfo(classNode));
         }
 
         return info;
     }
+    
+    /**
+     * Put a freshly created ClassInfo into the cache unless another thread
+     * cached one for the same class first, in which case that one wins so
+     * that every caller shares the same (mutable) instance.
+     *
+     * @param className Binary name of the class
+     * @param info Created ClassInfo, or null if the class could not be loaded
+     * @return ClassInfo which ended up in the cache
+     */
+    private static ClassInfo cache(String className, ClassInfo info) {
+        synchronized (ClassInfo.cache) {
+            ClassInfo existing = ClassInfo.cache.get(className);
+            if (existing != null || (info == null && ClassInfo.cache.containsKey(className))) {
+                return existing;
+            }
+            ClassInfo.cache.put(className, info);
+            return info;
+        }
+    }
 
     /**
      * Return a ClassInfo for the specified class name, fetches the ClassInfo
@@ -2109,7 +2130,7 @@ public final class ClassInfo {
             }
 
             // Put null in the cache if load failed
-            ClassInfo.cache.put(className, info);
+            info = ClassInfo.cache(className, info);
             ClassInfo.logger.trace("Added class metadata for {} to metadata cache", className);
         }
 
@@ -54,6 +54,10 @@ class MethodMapper {
      */
     private static final ILogger logger = MixinService.getService().getLogger("mixin");
     
+    /**
+     * Class UIDs by index, guarded by the class like {@link #methods} since
+     * mixins are applied to different targets concurrently
+     */
     private static final List<String> classes = new ArrayList<String>();
     
     /**
@@ -201,7 +205,7 @@ class MethodMapper {
      * @param classRef Class name (binary)
      * @return unique identifier
      */
-    private static String getClassUID(String classRef) {
+    private static synchronized String getClassUID(String classRef) {
         int index = MethodMapper.classes.indexOf(classRef);
         if (index < 0) {
             index = MethodMapper.classes.size();
@@ -218,7 +222,7 @@ class MethodMapper {
      * @param increment true to incrememnt the id if it already exists
      * @return unique identifier
      */
-    private static String getMethodUID(String name, String desc, boolean increment) {
+    private static synchronized String getMethodUID(String name, String desc, boolean increment) {
         String descriptor = String.format("%s%s", name, desc);
         Counter id = MethodMapper.methods.get(descriptor);
         if (id == null) {
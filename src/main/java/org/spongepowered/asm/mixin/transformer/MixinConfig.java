@@ -28,6 +28,8 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.lang.reflect.Constructor;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -201,22 +203,22 @@ public final class MixinConfig implements Comparable<MixinConfig>, IMixinConfig
     /**
      * Map of mixin target classes to mixin infos
      */
-    private final transient Map<String, List<MixinInfo>> mixinMapping = new HashMap<String, List<MixinInfo>>();
+    private final transient Map<String, List<MixinInfo>> mixinMapping = new ConcurrentHashMap<String, List<MixinInfo>>();
     
     /**
      * Targets for this configuration which haven't been mixed yet 
      */
-    private final transient Set<String> unhandledTargets = new HashSet<String>();
+    private final transient Set<String> unhandledTargets = ConcurrentHashMap.newKeySet();
     
     /**
      * Mixins which have been parsed but not yet prepared 
      */
-    private final transient List<MixinInfo> pendingMixins = new ArrayList<MixinInfo>();
+    private final transient List<MixinInfo> pendingMixins = new CopyOnWriteArrayList<MixinInfo>();
     
     /**
      * All mixins loaded by this config 
      */
-    private final transient List<MixinInfo> mixins = new ArrayList<MixinInfo>();
+    private final transient List<MixinInfo> mixins = new CopyOnWriteArrayList<MixinInfo>();
     
     /**
      * Marshal 
@@ -878,8 +880,7 @@ public final class MixinConfig implements Comparable<MixinConfig>, IMixinConfig
             this.prepareMixins("companion plugin", pluginMixins, true, extensions);
         }
         
-        for (Iterator<MixinInfo> iter = this.mixins.iterator(); iter.hasNext();) {
-            MixinInfo mixin = iter.next();
+        for (MixinInfo mixin : this.mixins) {
             try {
                 mixin.validate();
                 for (IListener listener : this.listeners) {
@@ -888,22 +889,18 @@ public final class MixinConfig implements Comparable<MixinConfig>, IMixinConfig
             } catch (InvalidMixinException ex) {
                 this.logger.error(ex.getMixin() + ": " + ex.getMessage(), ex);
                 this.removeMixin(mixin);
-                iter.remove();
+                this.mixins.remove(mixin);
             } catch (Exception ex) {
                 this.logger.error(ex.getMessage(), ex);
                 this.removeMixin(mixin);
-                iter.remove();
+                this.mixins.remove(mixin);
             }
         }
     }
 
     private void removeMixin(MixinInfo remove) {
         for (List<MixinInfo> mixinsFor : this.mixinMapping.values()) {
-            for (Iterator<MixinInfo> iter = mixinsFor.iterator(); iter.hasNext();) {
-                if (remove == iter.next()) {
-                    iter.remove();
-                }
-            }
+            mixinsFor.removeIf(mixin -> mixin == remove);
         }
     }
 
@@ -1333,12 +1330,7 @@ public final class MixinConfig implements Comparable<MixinConfig>, IMixinConfig
     }
 
     private List<MixinInfo> mixinsFor(String targetClass) {
-        List<MixinInfo> mixins = this.mixinMapping.get(targetClass);
-        if (mixins == null) {
-            mixins = new ArrayList<MixinInfo>();
-            this.mixinMapping.put(targetClass, mixins);
-        }
-        return mixins;
+        return this.mixinMapping.computeIfAbsent(targetClass, key -> new CopyOnWriteArrayList<MixinInfo>());
     }
 
     /**
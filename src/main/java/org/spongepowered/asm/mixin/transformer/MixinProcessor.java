@@ -26,6 +26,9 @@ package org.spongepowered.asm.mixin.transformer;
 
 import java.text.DecimalFormat;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.spongepowered.asm.logging.Level;
 import org.spongepowered.asm.logging.ILogger;
@@ -150,14 +153,27 @@ class MixinProcessor {
     private final IMixinService service = MixinService.getService();
     
     /**
-     * All mixin configuration bundles
+     * All mixin configuration bundles, copy-on-write so that targets can be
+     * processed concurrently while new configs are selected
      */
-    private final List<MixinConfig> configs = new ArrayList<MixinConfig>();
+    private final List<MixinConfig> configs = new CopyOnWriteArrayList<MixinConfig>();
     
     /**
      * Uninitialised mixin configuration bundles 
      */
-    private final List<MixinConfig> pendingConfigs = new ArrayList<MixinConfig>();
+    private final List<MixinConfig> pendingConfigs = new CopyOnWriteArrayList<MixinConfig>();
+    
+    /**
+     * Guards selection and preparation of configs
+     */
+    private final Object selectLock = new Object();
+    
+    /**
+     * Per-target locks, mixins are applied concurrently to different targets
+     * but never twice at the same time to the same target. An entry only lives
+     * while a thread is applying mixins to its target
+     */
+    private final Map<String, TargetLock> targetLocks = new ConcurrentHashMap<String, TargetLock>();
     
     /**
      * Re-entrance detector
@@ -199,22 +215,22 @@ class MixinProcessor {
     /**
      * Current environment 
      */
-    private MixinEnvironment currentEnvironment;
+    private volatile MixinEnvironment currentEnvironment;
 
     /**
      * Logging level for verbose messages 
      */
-    private Level verboseLoggingLevel = Level.DEBUG;
+    private volatile Level verboseLoggingLevel = Level.DEBUG;
 
     /**
      * Handling an error state, do not process further mixins
      */
-    private boolean errorState = false;
+    private volatile boolean errorState = false;
     
     /**
      * Number of classes transformed in the current phase
      */
-    private int transformedCount = 0;
+    private final AtomicInteger transformedCount = new AtomicInteger();
 
     /**
      * ctor 
@@ -268,11 +284,24 @@ class MixinProcessor {
         }
     }
 
-    synchronized boolean applyMixins(MixinEnvironment environment, String name, ClassNode targetClassNode) {
+    boolean applyMixins(MixinEnvironment environment, String name, ClassNode targetClassNode) {
         if (name == null || this.errorState) {
             return false;
         }
         
+        // the user count only changes inside compute, which is atomic per key
+        TargetLock targetLock = this.targetLocks.compute(name, (key, existing) -> (existing != null ? existing : new TargetLock()).acquire());
+        try {
+            synchronized (targetLock) {
+                return this.applyMixinsLocked(environment, name, targetClassNode);
+            }
+        } finally {
+            this.targetLocks.computeIfPresent(name, (key, existing) -> existing.release() ? null : existing);
+        }
+    }
+    
+    private boolean applyMixinsLocked(MixinEnvironment environment, String name, ClassNode targetClassNode) {
+        
         Section mixinTimer = this.profiler.begin("mixin");
         boolean locked;
         
@@ -360,7 +389,7 @@ class MixinProcessor {
                         this.handleMixinApplyError(context.getClassName(), suppressed, environment);
                     }
 
-                    this.transformedCount++;
+                    this.transformedCount.incrementAndGet();
                     transformed = true;
                 } catch (InvalidMixinException th) {
                     this.dumpClassOnFailure(name, targetClassNode, environment);
@@ -385,7 +414,7 @@ class MixinProcessor {
         return transformed;
     }
 
-    synchronized boolean couldTransformClass(MixinEnvironment environment, String name) {
+    boolean couldTransformClass(MixinEnvironment environment, String name) {
         if (environment != MixinEnvironment.getCurrentEnvironment()) {
             throw new MixinException("Current environment must match the supplied environment");
         }
@@ -481,21 +510,35 @@ class MixinProcessor {
     }
 
     private void checkSelect(MixinEnvironment environment) {
-        if (this.currentEnvironment != environment) {
-            this.select(environment);
+        if (!this.needsSelect(environment)) {
             return;
         }
         
-        int unvisitedCount = Mixins.getUnvisitedCount();
-        if (unvisitedCount > 0 && this.transformedCount == 0) {
-            this.select(environment);
+        synchronized (this.selectLock) {
+            if (this.needsSelect(environment)) {
+                this.select(environment);
+            }
+        }
+    }
+    
+    private boolean needsSelect(MixinEnvironment environment) {
+        if (this.currentEnvironment != environment) {
+            return true;
+        }
+        
+        if (this.transformedCount.get() > 0) {
+            return false;
+        }
+        
+        synchronized (this.selectLock) {
+            return Mixins.getUnvisitedCount() > 0;
         }
     }
 
     private void select(MixinEnvironment environment) {
         this.verboseLoggingLevel = (environment.getOption(Option.DEBUG_VERBOSE)) ? Level.INFO : Level.DEBUG;
-        if (this.transformedCount > 0) {
-            MixinProcessor.logger.log(this.verboseLoggingLevel, "Ending {}, applied {} mixins", this.currentEnvironment, this.transformedCount);
+        if (this.transformedCount.get() > 0) {
+            MixinProcessor.logger.log(this.verboseLoggingLevel, "Ending {}, applied {} mixins", this.currentEnvironment, this.transformedCount.get());
         }
         String action = this.currentEnvironment == environment ? "Checking for additional" : "Preparing";
         MixinProcessor.logger.log(this.verboseLoggingLevel, "{} mixins for {}", action, environment);
@@ -507,8 +550,8 @@ class MixinProcessor {
         this.selectConfigs(environment);
         this.extensions.select(environment);
         int totalMixins = this.prepareConfigs(environment, this.extensions);
+        this.transformedCount.set(0);
         this.currentEnvironment = environment;
-        this.transformedCount = 0;
 
         prepareTimer.end();
         
@@ -712,4 +755,25 @@ class MixinProcessor {
         }
     }
 
+    /**
+     * Lock of one target class, counting the threads using it
+     */
+    static final class TargetLock {
+        
+        private int users;
+        
+        TargetLock acquire() {
+            this.users++;
+            return this;
+        }
+        
+        /**
+         * @return true if no thread uses the lock anymore
+         */
+        boolean release() {
+            return --this.users == 0;
+        }
+        
+    }
+    
 }
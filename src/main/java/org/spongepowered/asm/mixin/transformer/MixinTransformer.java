@@ -229,7 +229,7 @@ final class MixinTransformer extends TreeTransformer implements IMixinTransforme
      * @return Transformed bytecode
      */
     @Override
-    public synchronized byte[] transformClass(MixinEnvironment environment, String name, byte[] classBytes) {
+    public byte[] transformClass(MixinEnvironment environment, String name, byte[] classBytes) {
         if (!couldTransformClass(environment, name)) {
             return classBytes;
         }
@@ -249,7 +249,7 @@ final class MixinTransformer extends TreeTransformer implements IMixinTransforme
      * @return true if the class was transformed
      */
     @Override
-    public synchronized boolean transformClass(MixinEnvironment environment, String name, ClassNode classNode) {
+    public boolean transformClass(MixinEnvironment environment, String name, ClassNode classNode) {
         return this.processor.applyMixins(environment, name, classNode);
     }
 
@@ -261,7 +261,7 @@ final class MixinTransformer extends TreeTransformer implements IMixinTransforme
      * @return true if the class could be transformed
      */
     @Override
-    public synchronized boolean couldTransformClass(MixinEnvironment environment, String name) {
+    public boolean couldTransformClass(MixinEnvironment environment, String name) {
         return this.processor.couldTransformClass(environment, name);
     }
 
@@ -273,7 +273,7 @@ final class MixinTransformer extends TreeTransformer implements IMixinTransforme
      * @return Generated bytecode or <tt>null</tt> if no class was generated
      */
     @Override
-    public synchronized byte[] generateClass(MixinEnvironment environment, String name) {
+    public byte[] generateClass(MixinEnvironment environment, String name) {
         ClassNode classNode = MixinTransformer.createEmptyClass(name);
         if (this.generator.generateClass(environment, name, classNode)) {
             return this.writeClass(classNode);
@@ -288,7 +288,7 @@ final class MixinTransformer extends TreeTransformer implements IMixinTransforme
      * @return True if the class was generated successfully
      */
     @Override
-    public synchronized boolean generateClass(MixinEnvironment environment, String name, ClassNode classNode) {
+    public boolean generateClass(MixinEnvironment environment, String name, ClassNode classNode) {
         return this.generator.generateClass(environment, name, classNode);
     }
     
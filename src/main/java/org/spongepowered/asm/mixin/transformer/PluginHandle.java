@@ -133,9 +133,10 @@ class PluginHandle {
     }
     
     /**
-     * Called immediately before the mixin is applied to targetClass
+     * Called immediately before the mixin is applied to targetClass, never
+     * concurrently with other apply callbacks of the same plugin
      */
-    public void preApply(String targetClassName, ClassNode targetClass, String mixinClassName, MixinInfo mixinInfo) throws Exception {
+    public synchronized void preApply(String targetClassName, ClassNode targetClass, String mixinClassName, MixinInfo mixinInfo) throws Exception {
         if (this.plugin == null) {
             return;
         }
@@ -164,9 +165,10 @@ class PluginHandle {
     }
 
     /**
-     * Called immediately after the mixin is applied to targetClass
+     * Called immediately after the mixin is applied to targetClass, never
+     * concurrently with other apply callbacks of the same plugin
      */
-    public void postApply(String targetClassName, ClassNode targetClass, String mixinClassName, MixinInfo mixinInfo) throws Exception {
+    public synchronized void postApply(String targetClassName, ClassNode targetClass, String mixinClassName, MixinInfo mixinInfo) throws Exception {
         if (this.plugin == null) {
             return;
         }
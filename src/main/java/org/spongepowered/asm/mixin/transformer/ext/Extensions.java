@@ -26,9 +26,9 @@ package org.spongepowered.asm.mixin.transformer.ext;
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.objectweb.asm.tree.ClassNode;
 import org.spongepowered.asm.mixin.MixinEnvironment;
@@ -52,7 +52,7 @@ public final class Extensions implements IExtensionRegistry {
      * generators using {@link #getExtension}
      */
     private final Map<Class<? extends IExtension>, IExtension> extensionMap
-            = new HashMap<Class<? extends IExtension>, IExtension>();
+            = new ConcurrentHashMap<Class<? extends IExtension>, IExtension>();
 
     /**
      * Modules which generate synthetic classes required by mixins 
@@ -69,7 +69,7 @@ public final class Extensions implements IExtensionRegistry {
      * generators using {@link #getGenerator}
      */
     private final Map<Class<? extends IClassGenerator>, IClassGenerator> generatorMap
-            = new HashMap<Class<? extends IClassGenerator>, IClassGenerator>();
+            = new ConcurrentHashMap<Class<? extends IClassGenerator>, IClassGenerator>();
     
     private final ISyntheticClassRegistry syntheticClassRegistry;
     
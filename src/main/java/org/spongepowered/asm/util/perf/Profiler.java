@@ -373,12 +373,15 @@ public final class Profiler {
         private long[] times = new long[0];
         
         /**
-         * Start time. Zero when not recording a time slice
+         * Start time of the thread timing this section. Zero when not
+         * recording a time slice. Kept per thread since the same section may be
+         * timed by transformations running concurrently on different threads
          */
-        private long start = 0L;
+        private final ThreadLocal<long[]> start = ThreadLocal.withInitial(() -> new long[1]);
         
         /**
-         * Current accumulated time and time in all previous slices
+         * Current accumulated time and time in all previous slices, updated
+         * while holding this section's monitor
          */
         private long time, markedTime;
         
@@ -399,17 +402,19 @@ public final class Profiler {
 
         @Override
         Section start() {
-            this.start = System.currentTimeMillis();
+            this.start.get()[0] = System.currentTimeMillis();
             return this;
         }
 
         @Override
         protected Section stop() {
-            if (this.start > 0L) {
-                this.time += System.currentTimeMillis() - this.start;
+            long[] start = this.start.get();
+            long elapsed = start[0] > 0L ? System.currentTimeMillis() - start[0] : 0L;
+            start[0] = 0L;
+            synchronized (this) {
+                this.time += elapsed;
+                this.count++;
             }
-            this.start = 0L;
-            this.count++;
             return this;
         }
         
@@ -423,7 +428,7 @@ public final class Profiler {
         }
         
         @Override
-        void mark() {
+        synchronized void mark() {
             if (this.cursor >= this.times.length) {
                 this.times = Arrays.copyOf(this.times, this.cursor + 4);
             }
@@ -709,9 +714,10 @@ public final class Profiler {
     private final List<String> phases = new ArrayList<String>();
     
     /**
-     * Profiler section stack
+     * Profiler section stack, kept per thread since sections may be begun and
+     * ended concurrently by transformations running on different threads
      */
-    private final Deque<Section> stack = new LinkedList<Section>();
+    private final ThreadLocal<Deque<Section>> stack = ThreadLocal.withInitial(LinkedList::new);
     
     public Profiler(String id) {
         this.id = id;
@@ -743,7 +749,7 @@ public final class Profiler {
         this.sections.clear();
         this.phases.clear();
         this.phases.add("Initial");
-        this.stack.clear();
+        this.stack.get().clear();
     }
 
     /**
@@ -772,7 +778,7 @@ public final class Profiler {
     }
     
     boolean isHead(Section section) {
-        return this.stack.peek() == section;
+        return this.stack.get().peek() == section;
     }
     
     /**
@@ -818,7 +824,8 @@ public final class Profiler {
         boolean fine = (flags & Profiler.FINE) != 0;
         
         String path = name;
-        Section head = this.stack.peek();
+        Deque<Section> stack = this.stack.get();
+        Section head = stack.peek();
         if (head != null) {
             path = head.getName() + (root ? Section.SEPARATOR_ROOT : Section.SEPARATOR_CHILD) + path;
             if (head.isRoot() && !root) {
@@ -834,7 +841,7 @@ public final class Profiler {
         }
         
         section.setFine(fine).setRoot(root);
-        this.stack.push(section);
+        stack.push(section);
         
         return section.start();
     }
@@ -846,8 +853,9 @@ public final class Profiler {
      * @param section section ending
      */
     synchronized void end(Section section) {
+        Deque<Section> stack = this.stack.get();
         try {
-            for (Section head = this.stack.pop(), next = head; next != section; next = this.stack.pop()) {
+            for (Section head = stack.pop(), next = head; next != section; next = stack.pop()) {
                 if (next == null && Profiler.active) {
                     if (head == null) {
                         throw new IllegalStateException("Attempted to pop " + section + " but the stack is empty");